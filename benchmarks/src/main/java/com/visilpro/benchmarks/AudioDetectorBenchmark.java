@@ -0,0 +1,59 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.service.audio.AcousticEventDetector;
+import com.visilpro.service.audio.VoiceActivityDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local audio detectors over one analysis window (2 s of 16 kHz audio), on
+ * speech and on near-silence. Each stream runs these once per hop, so the score
+ * bounds how many concurrent streams one core can keep up with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class AudioDetectorBenchmark {
+
+    private static final int WINDOW_SAMPLES = 32000;
+
+    @Param({"speech", "silence"})
+    public String input;
+
+    private short[] pcm;
+    private final VoiceActivityDetector vad = new VoiceActivityDetector();
+    private final AcousticEventDetector detector = new AcousticEventDetector();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pcm = "silence".equals(input)
+            ? AudioFixtures.silence(WINDOW_SAMPLES, random)
+            : AudioFixtures.twoSpeakers(WINDOW_SAMPLES, random);
+    }
+
+    @Benchmark
+    public int voiceActivity() {
+        return vad.countSpeechFrames(pcm, 0, pcm.length);
+    }
+
+    @Benchmark
+    public boolean phoneRinging() {
+        return detector.detectPhoneRinging(pcm, 0, pcm.length);
+    }
+
+    @Benchmark
+    public boolean keyboardSounds() {
+        return detector.detectKeyboardSounds(pcm, 0, pcm.length);
+    }
+
+    @Benchmark
+    public boolean multipleVoices() {
+        return detector.detectMultipleVoices(pcm, 0, pcm.length);
+    }
+}
@@ -0,0 +1,48 @@
+package com.visilpro.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Synthetic 16 kHz PCM used as benchmark input.
+ */
+final class AudioFixtures {
+
+    private AudioFixtures() {
+    }
+
+    /**
+     * Two harmonic "voices" with different pitch and formants taking turns every
+     * half second, over a low noise floor.
+     */
+    static short[] twoSpeakers(int samples, Random random) {
+        short[] pcm = new short[samples];
+        double phase = 0;
+        for (int i = 0; i < samples; i++) {
+            boolean first = (i / 8000) % 2 == 0;
+            double f0 = first ? 120 : 210;
+            double[] formants = first ? new double[] {700, 1200, 2600} : new double[] {400, 2200, 3000};
+            phase += 2 * Math.PI * f0 / 16000.0;
+            double value = 0;
+            for (int h = 1; h <= 20; h++) {
+                double gain = 0;
+                for (double formant : formants) {
+                    gain += 1 / (1 + Math.pow((h * f0 - formant) / 120, 2));
+                }
+                value += gain * Math.sin(h * phase);
+            }
+            pcm[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, 1500 * value + random.nextGaussian() * 50));
+        }
+        return pcm;
+    }
+
+    /**
+     * Low-level background noise with no speech.
+     */
+    static short[] silence(int samples, Random random) {
+        short[] pcm = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            pcm[i] = (short) (random.nextGaussian() * 30);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,163 @@
+package com.visilpro.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the repository lookups on the hot tables as event history grows,
+ * run as plain JDBC against H2 so that only the database's access path is
+ * measured.
+ *
+ * The schema mirrors what Hibernate generates for {@code ExamSession} and
+ * {@code MalpracticeEvent}, including their {@code @Table} indexes. With
+ * {@code indexed=true} a lookup reads only the matching index entries and rows,
+ * so its score grows far slower than the table; once the table outgrows the
+ * page cache, the rows it reads come from disk. With {@code indexed=false} the
+ * scores grow with the table. The 10M unindexed trials scan the whole table on
+ * every call and take a while.
+ *
+ * The database lives in a temporary directory rather than in memory: 10M
+ * events do not fit a 4 GB heap as H2 in-memory rows, and a file database with
+ * a bounded page cache keeps every trial on the same storage engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class EventQueryBenchmark {
+
+    private static final int EVENTS_PER_SESSION = 100;
+    private static final int INSERT_BATCH = 500_000;
+    private static final int CACHE_KB = 1024 * 1024;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final String[] TYPES = {"FACE_NOT_VISIBLE", "MULTIPLE_FACES", "LOOKING_AWAY", "AUDIO_DETECTED"};
+
+    @Param({"100000", "1000000", "10000000"})
+    public int events;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private Path directory;
+    private Connection connection;
+    private int sessions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        directory = Files.createTempDirectory("event-query-bench");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("bench")
+            + ";CACHE_SIZE=" + CACHE_KB, "sa", "");
+        sessions = Math.max(1, events / EVENTS_PER_SESSION);
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE exam_session (id BIGINT PRIMARY KEY, student_id VARCHAR(64),"
+                + " exam_code VARCHAR(64), start_time TIMESTAMP(6), end_time TIMESTAMP(6), status VARCHAR(16))");
+            st.execute("CREATE TABLE malpractice_event (id BIGINT PRIMARY KEY, session_id BIGINT,"
+                + " type VARCHAR(64), timestamp TIMESTAMP(6), confidence_score FLOAT(53) NOT NULL,"
+                + " snapshot_url VARCHAR(255), event_type VARCHAR(64), description VARCHAR(2048),"
+                + " severity VARCHAR(16), analysis_type VARCHAR(32))");
+
+            // Sessions interleave their events, as concurrent exams do
+            st.execute("INSERT INTO exam_session SELECT X, 'student-' || X, 'EXAM-' || MOD(X, 50),"
+                + " DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), NULL,"
+                + " CASE WHEN MOD(X, 10) = 0 THEN 'STARTED' ELSE 'COMPLETED' END"
+                + " FROM SYSTEM_RANGE(1, " + sessions + ")");
+            // In batches, so no single statement holds the undo log for the whole table
+            for (long first = 1; first <= events; first += INSERT_BATCH) {
+                long last = Math.min(events, first + INSERT_BATCH - 1);
+                st.execute("INSERT INTO malpractice_event SELECT X, MOD(X, " + sessions + ") + 1,"
+                    + " CASE MOD(X, 4) WHEN 0 THEN 'FACE_NOT_VISIBLE' WHEN 1 THEN 'MULTIPLE_FACES'"
+                    + " WHEN 2 THEN 'LOOKING_AWAY' ELSE 'AUDIO_DETECTED' END,"
+                    + " DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), 0.8,"
+                    + " '/evidence/' || X || '.jpg', NULL, NULL, NULL, NULL"
+                    + " FROM SYSTEM_RANGE(" + first + ", " + last + ")");
+            }
+
+            if (indexed) {
+                st.execute("CREATE INDEX idx_exam_session_student_status ON exam_session (student_id, status)");
+                st.execute("CREATE INDEX idx_malpractice_event_session_time ON malpractice_event (session_id, timestamp)");
+                st.execute("CREATE INDEX idx_malpractice_event_type_time ON malpractice_event (type, timestamp DESC)");
+            }
+            st.execute("ANALYZE");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("SHUTDOWN");
+        }
+        connection.close();
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * {@code MalpracticeEventRepository.findBySessionId}.
+     */
+    @Benchmark
+    public int findBySessionId() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM malpractice_event WHERE session_id = ? ORDER BY timestamp")) {
+            ps.setLong(1, ThreadLocalRandom.current().nextInt(sessions) + 1);
+            return count(ps);
+        }
+    }
+
+    /**
+     * {@code ExamSessionRepository.findByStudentIdAndStatus}.
+     */
+    @Benchmark
+    public int findByStudentIdAndStatus() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM exam_session WHERE student_id = ? AND status = ?")) {
+            ps.setString(1, "student-" + (ThreadLocalRandom.current().nextInt(sessions) + 1));
+            ps.setString(2, "COMPLETED");
+            return count(ps);
+        }
+    }
+
+    /**
+     * The newest events of one type in a time window. Ordering by type as well lets H2
+     * read the first 50 entries of the (type, timestamp DESC) index instead of sorting
+     * every event after the cursor.
+     */
+    @Benchmark
+    public int recentEventsOfType() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM malpractice_event WHERE type = ? AND timestamp >= ? ORDER BY type, timestamp DESC LIMIT 50")) {
+            ps.setString(1, TYPES[random.nextInt(TYPES.length)]);
+            ps.setTimestamp(2, Timestamp.valueOf(EPOCH.plusSeconds(random.nextInt(events))));
+            return count(ps);
+        }
+    }
+
+    private static int count(PreparedStatement ps) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
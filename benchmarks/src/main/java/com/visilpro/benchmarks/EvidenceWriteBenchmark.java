@@ -0,0 +1,69 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.service.EvidenceStore;
+import com.visilpro.service.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The snapshot path of {@code ProctorController.logEvent}: base64 decode of the
+ * posted data URL, then the evidence file write, measured separately and together.
+ * Files go to a temporary directory that is removed after each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvidenceWriteBenchmark {
+
+    // Typical webcam JPEG snapshots
+    @Param({"30", "120"})
+    public int snapshotKb;
+
+    private Path dir;
+    private EvidenceStore store;
+    private String dataUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("evidence-bench");
+        PipelineMetrics metrics = Wiring.inject(new PipelineMetrics(), "meterRegistry", new SimpleMeterRegistry());
+        store = new EvidenceStore();
+        Wiring.inject(store, "pipelineMetrics", metrics);
+        Wiring.inject(store, "evidenceDir", dir.toString());
+
+        byte[] jpeg = new byte[snapshotKb * 1024];
+        new Random(42).nextBytes(jpeg);
+        dataUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(jpeg);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64.getDecoder().decode(dataUrl.split(",")[1]);
+    }
+
+    @Benchmark
+    public String decodeAndWrite() throws IOException {
+        return store.saveSnapshot(dataUrl);
+    }
+}
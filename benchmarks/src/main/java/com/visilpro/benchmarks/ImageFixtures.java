@@ -0,0 +1,97 @@
+package com.visilpro.benchmarks;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Synthetic webcam frames used as benchmark input: a cluttered room and zero,
+ * one or two drawn faces, with sensor noise, encoded the way browsers send them.
+ */
+final class ImageFixtures {
+
+    private ImageFixtures() {
+    }
+
+    static BufferedImage scene(int width, int height, int faces, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, new Color(120, 130, 140), width, height, new Color(80, 85, 90)));
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 12; i++) {
+            g.setColor(new Color(random.nextInt(200), random.nextInt(200), random.nextInt(200)));
+            g.fillRect(random.nextInt(width), random.nextInt(height), width / 32 + random.nextInt(width / 5),
+                height / 48 + random.nextInt(height / 6));
+        }
+        int faceWidth = width * 9 / 32;
+        if (faces == 1) {
+            face(g, width / 2, height * 11 / 24, faceWidth);
+        } else if (faces >= 2) {
+            face(g, width * 5 / 16, height * 11 / 24, faceWidth);
+            face(g, width * 23 / 32, height * 23 / 48, faceWidth * 5 / 6);
+        }
+        g.dispose();
+        addNoise(image, random);
+        return image;
+    }
+
+    /**
+     * JPEG at quality 0.8, as the exam page's {@code canvas.toDataURL('image/jpeg', 0.8)}.
+     */
+    static byte[] jpeg(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static void addNoise(BufferedImage image, Random random) {
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < data.length; i++) {
+            int value = (data[i] & 0xFF) + (int) (random.nextGaussian() * 4);
+            data[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+    }
+
+    private static void face(Graphics2D g, int cx, int cy, int w) {
+        int h = w * 13 / 10;
+        int eyeY = cy - h / 8;
+        g.setColor(new Color(60, 40, 30));
+        g.fillOval(cx - w / 2 - 4, cy - h / 2 - 8, w + 8, h / 2);
+        g.setColor(new Color(205, 170, 145));
+        g.fillOval(cx - w / 2, cy - h / 2, w, h);
+        g.setColor(new Color(90, 60, 50));
+        g.fillRect(cx - w / 3, eyeY - w / 6, w / 4, w / 20);
+        g.fillRect(cx + w / 12, eyeY - w / 6, w / 4, w / 20);
+        g.setColor(new Color(50, 40, 40));
+        g.fillOval(cx - w / 3, eyeY - w / 14, w / 4, w / 8);
+        g.fillOval(cx + w / 12, eyeY - w / 14, w / 4, w / 8);
+        g.setColor(new Color(225, 195, 170));
+        g.fillRect(cx - w / 20, eyeY - w / 10, w / 10, w / 3);
+        g.setColor(new Color(150, 70, 70));
+        g.fillOval(cx - w / 6, cy + h / 5, w / 3, w / 10);
+    }
+}
@@ -0,0 +1,50 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.service.vision.FramePreprocessor;
+import com.visilpro.service.vision.ImagePrescreener;
+import com.visilpro.service.vision.PrescreenResult;
+import com.visilpro.service.vision.RasterPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shrinking a webcam JPEG before the vision model call, at the service defaults
+ * (512 px longest edge, quality 0.7). Setup prints the fixture's payload before
+ * and after, so each run also reports the byte saving it buys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ImagePreprocessBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    @Param({"1"})
+    public int faces;
+
+    private byte[] jpeg;
+    private PrescreenResult prescreen;
+    private final FramePreprocessor preprocessor = new FramePreprocessor(new RasterPool(4), 512, 0.7f, 2.5);
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] size = resolution.split("x");
+        jpeg = ImageFixtures.jpeg(ImageFixtures.scene(Integer.parseInt(size[0]), Integer.parseInt(size[1]), faces, new Random(42)));
+        prescreen = new ImagePrescreener().prescreen(jpeg);
+        byte[] reduced = preprocessor.process(jpeg, prescreen);
+        System.out.printf("%n%s: %d bytes uploaded, %d bytes to the model%n", resolution, jpeg.length,
+            reduced != null ? reduced.length : jpeg.length);
+    }
+
+    @Benchmark
+    public byte[] preprocess() throws IOException {
+        return preprocessor.process(jpeg, prescreen);
+    }
+}
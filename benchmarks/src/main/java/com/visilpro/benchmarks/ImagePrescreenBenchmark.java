@@ -0,0 +1,53 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.service.vision.FrameDecoder;
+import com.visilpro.service.vision.GrayFrame;
+import com.visilpro.service.vision.ImagePrescreener;
+import com.visilpro.service.vision.PrescreenResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local frame prescreen on one webcam JPEG: the full pass (subsampled decode
+ * plus face detection) and detection alone on an already decoded frame. The
+ * prescreen runs on the analysis executor ahead of every image model call, so
+ * 1e6 / score is the number of frames per second one core can screen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ImagePrescreenBenchmark {
+
+    @Param({"0", "1", "2"})
+    public int faces;
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    private byte[] jpeg;
+    private final ImagePrescreener prescreener = new ImagePrescreener();
+    private final GrayFrame decoded = new GrayFrame();
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] size = resolution.split("x");
+        jpeg = ImageFixtures.jpeg(ImageFixtures.scene(Integer.parseInt(size[0]), Integer.parseInt(size[1]), faces, new Random(42)));
+        new FrameDecoder(ImagePrescreener.ANALYSIS_WIDTH).decode(jpeg, decoded);
+    }
+
+    @Benchmark
+    public PrescreenResult prescreen() throws IOException {
+        return prescreener.prescreen(jpeg);
+    }
+
+    @Benchmark
+    public PrescreenResult detectOnly() {
+        return prescreener.prescreen(decoded);
+    }
+}
@@ -0,0 +1,44 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.service.risk.CorrelationRule;
+import com.visilpro.service.risk.RiskAssessment;
+import com.visilpro.service.risk.RiskSignal;
+import com.visilpro.service.risk.SessionRisk;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of feeding one verdict into a session's streaming risk state and reading
+ * back the combined score. The state is a fixed set of arrays, so the score
+ * should not depend on how long the session has been running.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RiskCorrelationBenchmark {
+
+    private static final RiskSignal[] SIGNALS = RiskSignal.values();
+
+    private SessionRisk risk;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        risk = new SessionRisk(CorrelationRule.DEFAULT_RULES, 60_000, 75, 50);
+        now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public RiskAssessment observe() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Verdicts roughly every 250 ms, occasionally out of order
+        now += 250;
+        long timestamp = now - (random.nextInt(8) == 0 ? random.nextInt(2000) : 0);
+        return risk.observe(SIGNALS[random.nextInt(SIGNALS.length)], 0.5 + random.nextDouble() / 2, timestamp);
+    }
+}
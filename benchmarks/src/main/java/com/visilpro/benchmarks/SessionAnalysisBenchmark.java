@@ -0,0 +1,120 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.model.ExamSession;
+import com.visilpro.repository.ExamSessionRepository;
+import com.visilpro.repository.MalpracticeEventRepository;
+import com.visilpro.service.EnhancedProctoringService;
+import com.visilpro.service.ExamAnalyticsService;
+import com.visilpro.service.ExamSessionService;
+import com.visilpro.service.FrameTracer;
+import com.visilpro.service.LLMAnalysisService.AnalysisResult;
+import com.visilpro.service.PipelineMetrics;
+import com.visilpro.service.RiskCorrelator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory analysis history of {@code EnhancedProctoringService}: storing
+ * verdicts (through {@code recordStreamAudioResult}, which goes through
+ * {@code storeAnalysisResult}) while summaries and recent-violation queries
+ * read the same sessions.
+ *
+ * The {@code contended} group runs three writers against one reader. With
+ * {@code sessions=1} every thread works on the same session history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionAnalysisBenchmark {
+
+    @Param({"1", "100"})
+    public int sessions;
+
+    private EnhancedProctoringService service;
+    private String[] sessionIds;
+    private AnalysisResult[] results;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PipelineMetrics metrics = Wiring.inject(new PipelineMetrics(), "meterRegistry", registry);
+
+        ExamSession session = new ExamSession();
+        session.setId(1L);
+        session.setExamCode("EXAM-001");
+        ExamSessionService sessionService = Wiring.inject(new ExamSessionService(), "sessionRepository",
+            Wiring.repository(ExamSessionRepository.class, session));
+        ExamAnalyticsService analytics = Wiring.inject(new ExamAnalyticsService(), "examSessionService", sessionService);
+
+        service = new EnhancedProctoringService();
+        Wiring.inject(service, "examAnalyticsService", analytics);
+        Wiring.inject(service, "pipelineMetrics", metrics);
+        Wiring.inject(service, "meterRegistry", registry);
+        Wiring.inject(service, "frameTracer", Wiring.inject(new FrameTracer(), "meterRegistry", registry));
+        Wiring.inject(service, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        RiskCorrelator riskCorrelator = new RiskCorrelator();
+        Wiring.inject(riskCorrelator, "halfLifeMillis", 60_000L);
+        Wiring.inject(riskCorrelator, "alertThreshold", 75);
+        Wiring.inject(riskCorrelator, "rearmThreshold", 50);
+        Wiring.inject(service, "riskCorrelator", riskCorrelator);
+        Wiring.inject(service, "malpracticeEventRepository", Wiring.repository(MalpracticeEventRepository.class, null));
+
+        sessionIds = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            sessionIds[i] = Integer.toString(i + 1);
+        }
+        // A mix of clear windows, medium-risk violations and the odd high-risk alert
+        results = new AnalysisResult[] {
+            new AnalysisResult(false, 0.9, "No suspicious activity", null),
+            new AnalysisResult(false, 0.8, "No suspicious activity", null),
+            new AnalysisResult(true, 0.6, "Multiple voices detected", "MULTIPLE_VOICES"),
+            new AnalysisResult(true, 0.9, "Phone ringing detected", "PHONE_RINGING"),
+        };
+        // Fill every history to its 50-entry cap so reads see steady-state sizes
+        for (String id : sessionIds) {
+            for (int i = 0; i < 50; i++) {
+                service.recordStreamAudioResult(id, results[i % results.length]);
+            }
+        }
+    }
+
+    private String anySession() {
+        return sessionIds[ThreadLocalRandom.current().nextInt(sessionIds.length)];
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Map<String, Object> store() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.recordStreamAudioResult(anySession(), results[random.nextInt(results.length)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Map<String, Object> summary() {
+        return service.getSessionAnalyticsSummary(anySession());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<String, Object> summaryUncontended() {
+        return service.getSessionAnalyticsSummary(anySession());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Map<String, Object>> recentViolations() {
+        return service.getRecentViolations(anySession(), 10);
+    }
+}
@@ -0,0 +1,72 @@
+package com.visilpro.benchmarks;
+
+import com.visilpro.handler.InMemoryRoomBus;
+import com.visilpro.handler.SignalingHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay fan-out in {@code SignalingHandler}: one ICE candidate or SDP offer from
+ * a peer, queued for every other peer in the room. Peers are stub sessions
+ * without an async remote, so each send completes inline and the score covers
+ * the full fan-out including the writes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignalingRelayBenchmark {
+
+    private static final String ROOM = "42";
+
+    @Param({"2", "50", "500"})
+    public int peers;
+
+    private SignalingHandler handler;
+    private StubWebSocketSession sender;
+    private TextMessage candidate;
+    private TextMessage offer;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new SignalingHandler(new InMemoryRoomBus(), new SimpleMeterRegistry(), 256, 10_000, 60_000, 2);
+        TextMessage join = new TextMessage("{\"type\":\"join\",\"sessionId\":\"" + ROOM + "\"}");
+        for (int i = 0; i < peers; i++) {
+            StubWebSocketSession peer = new StubWebSocketSession("peer-" + i);
+            handler.afterConnectionEstablished(peer);
+            handler.handleMessage(peer, join);
+            if (i == 0) {
+                sender = peer;
+            }
+        }
+        candidate = new TextMessage("{\"type\":\"candidate\",\"sessionId\":\"" + ROOM + "\",\"candidate\":{"
+            + "\"candidate\":\"candidate:842163049 1 udp 1677729535 203.0.113.7 53421 typ srflx raddr 10.0.0.5 rport 53421"
+            + " generation 0 ufrag kT3p network-cost 999\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}");
+        StringBuilder sdp = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            sdp.append("a=rtpmap:").append(96 + i).append(" VP8/90000\\r\\n");
+        }
+        offer = new TextMessage("{\"type\":\"offer\",\"sessionId\":\"" + ROOM + "\",\"offer\":{\"type\":\"offer\",\"sdp\":\""
+            + sdp + "\"}}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        handler.close();
+    }
+
+    @Benchmark
+    public void relayCandidate() throws Exception {
+        handler.handleMessage(sender, candidate);
+    }
+
+    @Benchmark
+    public void relayOffer() throws Exception {
+        handler.handleMessage(sender, offer);
+    }
+}
@@ -0,0 +1,51 @@
+package com.visilpro.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Assembles the application's field-injected services outside Spring, with
+ * in-memory stand-ins for the JPA repositories.
+ */
+final class Wiring {
+
+    private Wiring() {
+    }
+
+    static <T> T inject(T target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + field + " into " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * A repository whose {@code save} returns its argument, whose {@code findById}
+     * returns {@code found} and whose list queries return nothing.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Object found) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "save":
+                    return args[0];
+                case "findById":
+                    return Optional.ofNullable(found);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    return List.class.isAssignableFrom(method.getReturnType()) ? List.of() : null;
+            }
+        });
+    }
+}
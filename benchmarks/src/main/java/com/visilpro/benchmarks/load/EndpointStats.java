@@ -0,0 +1,83 @@
+package com.visilpro.benchmarks.load;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request count, errors and a latency histogram for one endpoint.
+ *
+ * Latencies go into log-scale buckets 2% wide, from 1 us to about 2 minutes,
+ * so memory is constant however long the run is and percentiles are accurate
+ * to within one bucket.
+ */
+final class EndpointStats {
+
+    private static final double RATIO = 1.02;
+    private static final double LOG_RATIO = Math.log(RATIO);
+    private static final int BUCKETS = (int) Math.ceil(Math.log(120_000_000.0) / LOG_RATIO) + 1;
+
+    final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, boolean ok, long requestBytes) {
+        long micros = Math.max(1, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, (int) (Math.log(micros) / LOG_RATIO));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        bytes.add(requestBytes);
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * A request that failed before any response (connection refused, timeout).
+     */
+    void recordFailure() {
+        count.increment();
+        errors.increment();
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long bytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Latency at the given quantile in milliseconds (upper edge of the bucket).
+     */
+    double percentileMillis(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.pow(RATIO, i + 1) / 1_000.0;
+            }
+        }
+        return Math.pow(RATIO, BUCKETS) / 1_000.0;
+    }
+}
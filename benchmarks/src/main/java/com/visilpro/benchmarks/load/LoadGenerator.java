@@ -0,0 +1,407 @@
+package com.visilpro.benchmarks.load;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process load generator that plays thousands of concurrent candidates and
+ * a handful of proctors against a running server.
+ *
+ * Every candidate starts an exam session, joins its signaling room and then, on
+ * jittered timers, sends webcam frames and audio chunks for analysis, logs the
+ * occasional client-side event and relays ICE candidates. Proctors poll the
+ * session list and event history and subscribe to every candidate's room over
+ * one signaling socket, as the dashboard does. Requests are sent with the JDK
+ * {@link HttpClient} asynchronously, so a few threads drive all virtual users.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.visilpro.benchmarks.load.LoadGenerator \
+ *     --target http://localhost:8080 --students 2000 --proctors 20 --duration 300s
+ * </pre>
+ *
+ * Start the server with the {@code loadtest} profile so analysis calls stay
+ * local instead of reaching Gemini. A report of count, throughput, latency
+ * percentiles and error rate per endpoint is printed every
+ * {@code --report-interval} and once more at the end.
+ */
+public final class LoadGenerator {
+
+    private static final Pattern SESSION_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final Options options;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final List<String> endpointOrder = new CopyOnWriteArrayList<>();
+    private final List<Long> sessionIds = new CopyOnWriteArrayList<>();
+    private final List<WebSocket> sockets = new CopyOnWriteArrayList<>();
+    private final AtomicInteger activeStudents = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService httpExecutor;
+    private final HttpClient studentClient;
+    private final HttpClient proctorClient;
+    private final String imageBody;
+    private final String audioBody;
+    private volatile boolean running = true;
+    private long startNanos;
+
+    LoadGenerator(Options options) {
+        this.options = options;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        this.scheduler = Executors.newScheduledThreadPool(threads, daemon("load-timer"));
+        this.httpExecutor = Executors.newFixedThreadPool(threads, daemon("load-http"));
+        // One login per role: every virtual user of a role shares that role's HTTP session
+        this.studentClient = client();
+        this.proctorClient = client();
+        Random random = new Random(42);
+        this.imageBody = Payloads.quoted(Payloads.jpegBase64(options.imageKb * 1024, random));
+        this.audioBody = Payloads.quoted(Payloads.wavBase64(options.audioSeconds, random));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("Load test against %s: %d students, %d proctors, %ds (ramp %ds)%n", options.target,
+            options.students, options.proctors, options.durationSeconds, options.rampSeconds);
+        login(studentClient, options.studentUser);
+        login(proctorClient, options.proctorUser);
+
+        startNanos = System.nanoTime();
+        long rampNanos = TimeUnit.SECONDS.toNanos(options.rampSeconds);
+        for (int i = 0; i < options.students; i++) {
+            int student = i;
+            long delay = options.students == 1 ? 0 : rampNanos * i / (options.students - 1);
+            scheduler.schedule(() -> startStudent(student), delay, TimeUnit.NANOSECONDS);
+        }
+        for (int i = 0; i < options.proctors; i++) {
+            startProctor(i);
+        }
+        scheduler.scheduleAtFixedRate(() -> report(false), options.reportSeconds, options.reportSeconds, TimeUnit.SECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds));
+        running = false;
+        scheduler.shutdownNow();
+        for (WebSocket socket : sockets) {
+            socket.abort();
+        }
+        report(true);
+        httpExecutor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Virtual users
+    // -------------------------------------------------------------------------
+
+    private void startStudent(int student) {
+        String body = "{\"studentId\":\"load-student-" + student + "\",\"examCode\":\"" + options.examCode + "\"}";
+        post(studentClient, "start", "/api/exam/start", body).thenAccept(response -> {
+            Matcher matcher = response == null ? null : SESSION_ID.matcher(response.body());
+            if (matcher == null || response.statusCode() != 200 || !matcher.find()) {
+                return;
+            }
+            long sessionId = Long.parseLong(matcher.group(1));
+            sessionIds.add(sessionId);
+            activeStudents.incrementAndGet();
+            openSignaling(studentClient, "{\"type\":\"join\",\"sessionId\":\"" + sessionId + "\"}").thenAccept(socket ->
+                every(options.signalMillis, () -> signal(socket, sessionId)));
+            every(options.imageMillis, () -> post(studentClient, "analyze-image",
+                "/api/exam/gemini/analyze-image/" + sessionId, imageBody, true));
+            every(options.audioMillis, () -> post(studentClient, "analyze-audio",
+                "/api/exam/gemini/analyze-audio/" + sessionId, audioBody, true));
+            every(options.eventMillis, () -> post(studentClient, "log", "/api/exam/log",
+                "{\"sessionId\":" + sessionId + ",\"type\":\"LOOKING_AWAY\",\"confidenceScore\":0.8}"));
+        });
+    }
+
+    private void startProctor(int proctor) {
+        every(options.pollMillis, () -> get(proctorClient, "sessions", "/api/exam/sessions"));
+        every(options.pollMillis, () -> {
+            if (!sessionIds.isEmpty()) {
+                long sessionId = sessionIds.get(ThreadLocalRandom.current().nextInt(sessionIds.size()));
+                get(proctorClient, "events", "/api/exam/events/" + sessionId);
+            }
+        });
+        // Subscribe to every room once the students have had time to join
+        scheduler.schedule(() -> {
+            StringBuilder join = new StringBuilder("{\"type\":\"join\",\"sessionIds\":[");
+            for (int i = 0; i < sessionIds.size(); i++) {
+                join.append(i == 0 ? "\"" : ",\"").append(sessionIds.get(i)).append('"');
+            }
+            openSignaling(proctorClient, join.append("]}").toString());
+        }, options.rampSeconds + 1, TimeUnit.SECONDS);
+    }
+
+    private void signal(WebSocket socket, long sessionId) {
+        String candidate = "{\"type\":\"candidate\",\"sessionId\":\"" + sessionId
+            + "\",\"candidate\":{\"candidate\":\"candidate:1 1 udp 2122260223 10.0.0.1 54321 typ host\","
+            + "\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}";
+        long start = System.nanoTime();
+        socket.sendText(candidate, true).whenComplete((ws, error) -> {
+            if (error == null) {
+                stats("ws-send").record(System.nanoTime() - start, true, candidate.length());
+            } else {
+                stats("ws-send").recordFailure();
+            }
+        });
+    }
+
+    /**
+     * Run {@code action} every {@code periodMillis} from a random phase, so
+     * users started together do not fire in lockstep.
+     */
+    private void every(long periodMillis, Runnable action) {
+        if (periodMillis <= 0 || !running) {
+            return;
+        }
+        long phase = ThreadLocalRandom.current().nextLong(periodMillis);
+        scheduler.scheduleAtFixedRate(() -> {
+            if (running) {
+                action.run();
+            }
+        }, phase, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // -------------------------------------------------------------------------
+    // Transport
+    // -------------------------------------------------------------------------
+
+    private HttpClient client() {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .cookieHandler(new CookieManager())
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(httpExecutor)
+            .build();
+    }
+
+    private void login(HttpClient client, String user) throws Exception {
+        String form = "username=" + URLEncoder.encode(user, StandardCharsets.UTF_8)
+            + "&password=" + URLEncoder.encode(options.password, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.target + "/login"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login as " + user + " failed: " + response.statusCode() + " " + location);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> post(HttpClient client, String endpoint, String path, String body) {
+        return post(client, endpoint, path, body, false);
+    }
+
+    /**
+     * @param captured send the capture headers the exam page puts on frames and audio chunks
+     */
+    private CompletableFuture<HttpResponse<String>> post(HttpClient client, String endpoint, String path, String body,
+                                                         boolean captured) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(options.target + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (captured) {
+            request.header("X-Capture-Timestamp", Long.toString(System.currentTimeMillis()))
+                .header("X-Trace-Id", UUID.randomUUID().toString());
+        }
+        return send(client, endpoint, request.build(), body.length());
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(HttpClient client, String endpoint, String path) {
+        return send(client, endpoint, HttpRequest.newBuilder(URI.create(options.target + path)).GET().build(), 0);
+    }
+
+    /**
+     * @return the response, or null if the request failed without one
+     */
+    private CompletableFuture<HttpResponse<String>> send(HttpClient client, String endpoint, HttpRequest request, long bytes) {
+        EndpointStats endpointStats = stats(endpoint);
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                if (error != null) {
+                    endpointStats.recordFailure();
+                    return null;
+                }
+                endpointStats.record(System.nanoTime() - start, response.statusCode() < 400, bytes);
+                return response;
+            });
+    }
+
+    private CompletableFuture<WebSocket> openSignaling(HttpClient client, String join) {
+        URI uri = URI.create(options.target.replaceFirst("^http", "ws") + "/signal");
+        long start = System.nanoTime();
+        return client.newWebSocketBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .buildAsync(uri, new Listener())
+            .whenComplete((socket, error) -> {
+                if (error != null) {
+                    stats("ws-connect").recordFailure();
+                    return;
+                }
+                stats("ws-connect").record(System.nanoTime() - start, true, 0);
+                sockets.add(socket);
+                socket.sendText(join, true);
+            });
+    }
+
+    /**
+     * Counts relayed signals; the server sends them as binary frames.
+     */
+    private final class Listener implements WebSocket.Listener {
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            if (last) {
+                stats("ws-receive").record(0, true, data.remaining());
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (last) {
+                stats("ws-receive").record(0, true, data.length());
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            if (running) {
+                stats("ws-error").recordFailure();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Reporting
+    // -------------------------------------------------------------------------
+
+    private EndpointStats stats(String endpoint) {
+        return stats.computeIfAbsent(endpoint, name -> {
+            endpointOrder.add(name);
+            return new EndpointStats(name);
+        });
+    }
+
+    private synchronized void report(boolean last) {
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%n%s %.0fs, %d/%d students active, %d sockets%n", last ? "Final" : "Progress",
+            elapsed, activeStudents.get(), options.students, sockets.size());
+        System.out.printf("%-14s %10s %9s %9s %9s %9s %9s %8s%n",
+            "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        List<String> names = new ArrayList<>(endpointOrder);
+        for (String name : names) {
+            EndpointStats s = stats.get(name);
+            long errors = s.errors();
+            long count = s.count();
+            System.out.printf("%-14s %10d %9.1f %9.2f %9.2f %9.2f %9.2f %7.2f%%%n", name, count, count / elapsed,
+                s.percentileMillis(0.50), s.percentileMillis(0.99), s.percentileMillis(0.999),
+                s.percentileMillis(1.0), count == 0 ? 0 : 100.0 * errors / count);
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Command-line options; durations accept {@code ms}, {@code s} or {@code m} suffixes.
+     */
+    static final class Options {
+        String target = "http://localhost:8080";
+        String examCode = "LOAD-TEST";
+        String studentUser = "student@visilpro.com";
+        String proctorUser = "admin@visilpro.com";
+        String password = "asdf@IMN213";
+        int students = 1000;
+        int proctors = 5;
+        long durationSeconds = 120;
+        long rampSeconds = 30;
+        long reportSeconds = 10;
+        long imageMillis = 10_000;
+        long audioMillis = 5_000;
+        long eventMillis = 30_000;
+        long signalMillis = 2_000;
+        long pollMillis = 5_000;
+        int imageKb = 40;
+        double audioSeconds = 3;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--target" -> o.target = value.replaceAll("/+$", "");
+                    case "--exam-code" -> o.examCode = value;
+                    case "--student-user" -> o.studentUser = value;
+                    case "--proctor-user" -> o.proctorUser = value;
+                    case "--password" -> o.password = value;
+                    case "--students" -> o.students = Integer.parseInt(value);
+                    case "--proctors" -> o.proctors = Integer.parseInt(value);
+                    case "--duration" -> o.durationSeconds = millis(value) / 1000;
+                    case "--ramp" -> o.rampSeconds = millis(value) / 1000;
+                    case "--report-interval" -> o.reportSeconds = Math.max(1, millis(value) / 1000);
+                    case "--image-interval" -> o.imageMillis = millis(value);
+                    case "--audio-interval" -> o.audioMillis = millis(value);
+                    case "--event-interval" -> o.eventMillis = millis(value);
+                    case "--signal-interval" -> o.signalMillis = millis(value);
+                    case "--poll-interval" -> o.pollMillis = millis(value);
+                    case "--image-kb" -> o.imageKb = Integer.parseInt(value);
+                    case "--audio-seconds" -> o.audioSeconds = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            return o;
+        }
+
+        private static long millis(String value) {
+            if (value.endsWith("ms")) {
+                return Long.parseLong(value.substring(0, value.length() - 2));
+            } else if (value.endsWith("s")) {
+                return Long.parseLong(value.substring(0, value.length() - 1)) * 1000;
+            } else if (value.endsWith("m")) {
+                return Long.parseLong(value.substring(0, value.length() - 1)) * 60_000;
+            }
+            return Long.parseLong(value) * 1000;
+        }
+    }
+}
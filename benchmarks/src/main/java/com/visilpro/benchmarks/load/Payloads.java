@@ -0,0 +1,47 @@
+package com.visilpro.benchmarks.load;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Request bodies sized like the ones the exam page sends.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * A base64 "JPEG" of the given size (random bytes; the server does not decode it).
+     */
+    static String jpegBase64(int bytes, Random random) {
+        byte[] jpeg = new byte[bytes];
+        random.nextBytes(jpeg);
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        return Base64.getEncoder().encodeToString(jpeg);
+    }
+
+    /**
+     * A base64 16 kHz mono 16-bit WAV of low-level noise, the chunk format the
+     * server's local VAD understands.
+     */
+    static String wavBase64(double seconds, Random random) {
+        int samples = (int) (16000 * seconds);
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + samples * 2).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+            .putInt(16000).putInt(32000).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes()).putInt(samples * 2);
+        for (int i = 0; i < samples; i++) {
+            wav.putShort((short) (random.nextGaussian() * 40));
+        }
+        return Base64.getEncoder().encodeToString(wav.array());
+    }
+
+    static String quoted(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -26,7 +26,9 @@ public class SecurityConfig {
                     new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/models/**"),
                     new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/images/**"),
                     new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/api/exam/**"),
-                    new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/favicon.ico")
+                    new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/favicon.ico"),
+                    new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/actuator/health"),
+                    new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/actuator/prometheus")
                 ).permitAll()
                 .anyRequest().authenticated()
             )
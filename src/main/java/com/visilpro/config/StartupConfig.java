@@ -0,0 +1,69 @@
+package com.visilpro.config;
+
+import com.visilpro.service.AudioAnalysisService;
+import com.visilpro.service.GeminiRESTService;
+import com.visilpro.service.LLMAnalysisService;
+import com.visilpro.service.audio.Transcriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Startup time. Logs time to ready against {@code startup.target-ms}, and for
+ * the {@code faststart} profile narrows {@code spring.main.lazy-initialization}
+ * to the AI and audio beans: everything on the request path is still created
+ * up front, so the first request does not pay for the application's wiring.
+ *
+ * With {@code startup.exit-on-ready=true} the application exits once it is
+ * ready, which is how the build's AppCDS training run records the classes
+ * loaded during startup.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    private static final List<Class<?>> LAZY_TYPES = List.of(
+        GeminiRESTService.class, LLMAnalysisService.class, AudioAnalysisService.class, Transcriber.class);
+
+    @Value("${startup.target-ms:0}")
+    private long targetMillis;
+
+    @Value("${startup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    @Bean
+    @Profile("faststart")
+    public static LazyInitializationExcludeFilter eagerOutsideAiStack() {
+        return (beanName, beanDefinition, beanType) ->
+            beanType == null || LAZY_TYPES.stream().noneMatch(type -> type.isAssignableFrom(beanType));
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        // JVM uptime, so class loading before Spring starts counts too
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (targetMillis <= 0) {
+            logger.info("Ready to serve requests {} ms after JVM start", readyMillis);
+        } else if (readyMillis <= targetMillis) {
+            logger.info("Ready to serve requests {} ms after JVM start (target {} ms)", readyMillis, targetMillis);
+        } else {
+            logger.warn("Ready to serve requests {} ms after JVM start, over the {} ms target", readyMillis, targetMillis);
+        }
+
+        if (exitOnReady) {
+            logger.info("startup.exit-on-ready is set, exiting");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
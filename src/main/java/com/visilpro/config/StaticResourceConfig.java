@@ -0,0 +1,196 @@
+package com.visilpro.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.AbstractVersionStrategy;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+import org.springframework.web.servlet.resource.ResourceTransformerSupport;
+import org.springframework.web.servlet.resource.TransformedResource;
+import org.springframework.web.servlet.resource.VersionPathStrategy;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static assets. Scripts and face-api model files under {@code /js} and
+ * {@code /models} are addressed by content-hashed URLs
+ * ({@code llm-proctoring-<md5>.js}, {@code tiny_face_detector_model-shard1-<md5>})
+ * and served {@code immutable} for a year; the links in HTML pages and the shard
+ * paths in the weights manifests are rewritten to those URLs as they are served.
+ * Pages, manifests and unhashed URLs are revalidated on every use.
+ *
+ * Where the build left {@code .br} or {@code .gz} siblings (see the
+ * {@code precompress-static} execution in pom.xml) they are served to clients
+ * that accept them, so nothing is compressed per request.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private static final String[] HASHED_PATHS = {"/js/**", "/models/**"};
+    // Pages link to hashed URLs that stop resolving after a deploy, so they must never be cached stale
+    private static final String[] PAGE_PATHS = {"/", "/*.html"};
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private final ContentHashVersionStrategy versionStrategy = new ContentHashVersionStrategy();
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Replaces Boot's default static mapping (spring.web.resources.add-mappings=false)
+        registry.addResourceHandler("/**")
+            .addResourceLocations("classpath:/static/")
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver())
+            .addResolver(new VersionResourceResolver().addVersionStrategy(versionStrategy, HASHED_PATHS))
+            .addTransformer(new HashedLinkTransformer());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                boolean hashed = versionStrategy.extractVersion(request.getRequestURI()) != null;
+                response.setHeader(HttpHeaders.CACHE_CONTROL, (hashed ? IMMUTABLE : REVALIDATE).getHeaderValue());
+                return true;
+            }
+        }).addPathPatterns(HASHED_PATHS).addPathPatterns(PAGE_PATHS);
+    }
+
+    /**
+     * MD5 of the content, appended to the file name as {@code name-<md5>.ext}, or
+     * {@code name-<md5>} for the extensionless model shards, which Spring's
+     * {@code FileNameVersionPathStrategy} cannot parse back.
+     */
+    static class ContentHashVersionStrategy extends AbstractVersionStrategy {
+
+        ContentHashVersionStrategy() {
+            super(new HashSuffixPathStrategy());
+        }
+
+        @Override
+        public String getResourceVersion(Resource resource) {
+            try (InputStream in = resource.getInputStream()) {
+                return DigestUtils.md5DigestAsHex(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to hash " + resource, e);
+            }
+        }
+    }
+
+    static class HashSuffixPathStrategy implements VersionPathStrategy {
+
+        private static final Pattern VERSIONED = Pattern.compile("-([0-9a-f]{32})(\\.[^./]*)?$");
+
+        @Override
+        public String extractVersion(String requestPath) {
+            Matcher matcher = VERSIONED.matcher(requestPath);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        @Override
+        public String removeVersion(String requestPath, String version) {
+            int at = requestPath.lastIndexOf("-" + version);
+            return requestPath.substring(0, at) + requestPath.substring(at + version.length() + 1);
+        }
+
+        @Override
+        public String addVersion(String requestPath, String version) {
+            int slash = requestPath.lastIndexOf('/');
+            int dot = requestPath.lastIndexOf('.');
+            if (dot <= slash + 1) {
+                return requestPath + "-" + version;
+            }
+            return requestPath.substring(0, dot) + "-" + version + requestPath.substring(dot);
+        }
+    }
+
+    /**
+     * Rewrites local {@code src}/{@code href} links in HTML pages and the shard
+     * {@code paths} of face-api weights manifests to their hashed URLs.
+     */
+    static class HashedLinkTransformer extends ResourceTransformerSupport {
+
+        private static final Pattern HTML_LINK = Pattern.compile("(<(?:script|link)\\b[^>]*?\\b(?:src|href)=\")([^\":?#]+)(\")");
+        private static final Pattern MANIFEST_PATHS = Pattern.compile("\"paths\"\\s*:\\s*\\[([^\\]]*)]");
+        private static final Pattern QUOTED = Pattern.compile("\"([^\"]+)\"");
+
+        @Override
+        public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+                throws IOException {
+            resource = chain.transform(request, resource);
+            String filename = resource.getFilename();
+            // Precompressed variants are never rewritten; pages and manifests are not precompressed
+            if (filename == null || isEncoded(resource)) {
+                return resource;
+            }
+            if (filename.endsWith(".html")) {
+                return rewriteHtml(request, resource, chain);
+            }
+            if (filename.endsWith("-weights_manifest.json")) {
+                return rewriteManifest(request, resource, chain);
+            }
+            return resource;
+        }
+
+        private static boolean isEncoded(Resource resource) {
+            return resource instanceof HttpResource httpResource
+                && httpResource.getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING);
+        }
+
+        private Resource rewriteHtml(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+                throws IOException {
+            String html = new String(FileCopyUtils.copyToByteArray(resource.getInputStream()), StandardCharsets.UTF_8);
+            Matcher matcher = HTML_LINK.matcher(html);
+            StringBuilder out = new StringBuilder(html.length() + 256);
+            while (matcher.find()) {
+                String hashed = resolveUrlPath(matcher.group(2), request, resource, chain);
+                String link = hashed != null ? hashed : matcher.group(2);
+                matcher.appendReplacement(out, Matcher.quoteReplacement(matcher.group(1) + link + matcher.group(3)));
+            }
+            matcher.appendTail(out);
+            return new TransformedResource(resource, out.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private Resource rewriteManifest(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+                throws IOException {
+            String manifest = new String(FileCopyUtils.copyToByteArray(resource.getInputStream()), StandardCharsets.UTF_8);
+            // face-api fetches shards relative to the manifest's directory
+            String uri = request.getRequestURI();
+            String directory = uri.substring(0, uri.lastIndexOf('/') + 1);
+            Matcher paths = MANIFEST_PATHS.matcher(manifest);
+            StringBuilder out = new StringBuilder(manifest.length() + 128);
+            while (paths.find()) {
+                Matcher shard = QUOTED.matcher(paths.group(1));
+                StringBuilder shards = new StringBuilder();
+                while (shard.find()) {
+                    String hashed = resolveUrlPath(directory + shard.group(1), request, resource, chain);
+                    String name = hashed != null ? hashed.substring(hashed.lastIndexOf('/') + 1) : shard.group(1);
+                    shard.appendReplacement(shards, Matcher.quoteReplacement("\"" + name + "\""));
+                }
+                shard.appendTail(shards);
+                paths.appendReplacement(out, Matcher.quoteReplacement("\"paths\": [" + shards + "]"));
+            }
+            paths.appendTail(out);
+            return new TransformedResource(resource, out.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
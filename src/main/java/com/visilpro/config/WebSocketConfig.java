@@ -1,24 +1,139 @@
 package com.visilpro.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visilpro.handler.AudioStreamHandler;
+import com.visilpro.handler.InMemoryRoomBus;
+import com.visilpro.handler.RoomBus;
 import com.visilpro.handler.SignalingHandler;
+import com.visilpro.handler.SocketRoomBus;
+import com.visilpro.service.AudioAnalysisService;
+import com.visilpro.service.EnhancedProctoringService;
+import com.visilpro.service.ExamSessionService;
+import com.visilpro.service.ProctorAlertEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    // Resolved on the first audio stream rather than when the handlers are registered
+    @Autowired
+    @Lazy
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private EnhancedProctoringService enhancedProctoringService;
+
+    @Autowired
+    private ExamSessionService examSessionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${signaling.outbox.capacity:256}")
+    private int signalingOutboxCapacity;
+
+    @Value("${signaling.outbox.send-timeout-ms:10000}")
+    private long signalingSendTimeoutMs;
+
+    @Value("${signaling.heartbeat.interval-ms:15000}")
+    private long signalingHeartbeatIntervalMs;
+
+    @Value("${signaling.heartbeat.max-missed:2}")
+    private int signalingHeartbeatMaxMissed;
+
+    @Value("${signaling.bus.type:memory}")
+    private String signalingBusType;
+
+    @Value("${signaling.bus.address:}")
+    private String signalingBusAddress;
+
+    @Value("${signaling.bus.peers:}")
+    private String[] signalingBusPeers;
+
+    @Value("${signaling.bus.secret:}")
+    private String signalingBusSecret;
+
+    @Value("${audio.stream.pool.max-idle:256}")
+    private int audioStreamMaxIdleBuffers;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(signalingHandler(), "/signal")
                 .setAllowedOrigins("*"); // Allow all origins for simplicity
+        registry.addHandler(audioStreamHandler(), "/audio")
+                .setAllowedOrigins("*");
     }
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public SignalingHandler signalingHandler() {
-        return new SignalingHandler();
+        return new SignalingHandler(roomBus(), meterRegistry, signalingOutboxCapacity, signalingSendTimeoutMs,
+                signalingHeartbeatIntervalMs, signalingHeartbeatMaxMissed);
+    }
+
+    /**
+     * Push analysis alerts to the proctors subscribed to the session, not to the
+     * candidate in its signaling room; the dashboard refreshes the session's events
+     * when one arrives.
+     */
+    @EventListener
+    public void pushAlert(ProctorAlertEvent event) throws JsonProcessingException {
+        Map<String, Object> alert = new LinkedHashMap<>();
+        alert.put("type", "alert");
+        alert.put("sessionId", event.sessionId());
+        alert.put("traceId", event.traceId());
+        alert.put("captureTimestamp", event.captureTimestamp());
+        alert.put("analysisType", event.type());
+        alert.put("confidence", event.confidence());
+        alert.put("riskLevel", event.riskLevel());
+        alert.put("issues", event.issues());
+        signalingHandler().publish(SignalingHandler.alertRoom(event.sessionId()), objectMapper.writeValueAsString(alert));
+    }
+
+    @Bean(destroyMethod = "close")
+    public RoomBus roomBus() {
+        if ("socket".equals(signalingBusType)) {
+            List<String> peers = Arrays.stream(signalingBusPeers).map(String::trim).filter(p -> !p.isEmpty()).toList();
+            try {
+                return new SocketRoomBus(signalingBusAddress, peers, signalingBusSecret);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start signaling room bus on " + signalingBusAddress, e);
+            }
+        }
+        return new InMemoryRoomBus();
+    }
+
+    @Bean
+    public AudioStreamHandler audioStreamHandler() {
+        return new AudioStreamHandler(audioAnalysisService, enhancedProctoringService, examSessionService,
+            audioStreamMaxIdleBuffers);
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        // Audio frames arrive as binary messages of a few hundred milliseconds of PCM
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(64 * 1024);
+        return container;
     }
 }
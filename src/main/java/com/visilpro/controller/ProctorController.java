@@ -2,9 +2,19 @@ package com.visilpro.controller;
 
 import com.visilpro.model.ExamSession;
 import com.visilpro.model.MalpracticeEvent;
+import com.visilpro.model.SessionReport;
 import com.visilpro.repository.ExamSessionRepository;
 import com.visilpro.repository.MalpracticeEventRepository;
 import com.visilpro.service.EnhancedProctoringService;
+import com.visilpro.service.EvidenceStore;
+import com.visilpro.service.ExamAnalyticsService;
+import com.visilpro.service.ExamSessionService;
+import com.visilpro.service.FrameTrace;
+import com.visilpro.service.FrameTracer;
+import com.visilpro.service.PipelineMetrics;
+import com.visilpro.service.RiskCorrelator;
+import com.visilpro.service.SessionReportService;
+import com.visilpro.service.risk.RiskAssessment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,11 +23,6 @@ import org.springframework.http.ResponseEntity;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.Base64;
-import java.util.UUID;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 @RestController
 @RequestMapping("/api/exam")
@@ -33,41 +38,72 @@ public class ProctorController {
     @Autowired
     private EnhancedProctoringService enhancedProctoringService;
 
+    @Autowired
+    private ExamSessionService examSessionService;
+
+    @Autowired
+    private SessionReportService sessionReportService;
+
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private EvidenceStore evidenceStore;
+
+    @Autowired
+    private FrameTracer frameTracer;
+
+    @Autowired
+    private RiskCorrelator riskCorrelator;
+
     @PostMapping("/start")
     public ExamSession startExam(@RequestBody ExamSession session) {
-        session.setStartTime(LocalDateTime.now());
-        session.setStatus("STARTED");
-        ExamSession savedSession = sessionRepository.save(session);
+        ExamSession savedSession = examSessionService.startSession(session);
         
         // Session is ready for Gemini AI monitoring
         
         return savedSession;
     }
 
+    @PostMapping("/end/{sessionId}")
+    public ResponseEntity<ExamSession> endExam(
+            @PathVariable Long sessionId,
+            @RequestParam(defaultValue = "COMPLETED") String status) {
+        if (!ExamSessionService.isFinished(status)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // The session report is built in the background; events are later moved to the archive
+        return ResponseEntity.of(examSessionService.endSession(sessionId, status));
+    }
+
+    @GetMapping("/report/{sessionId}")
+    public ResponseEntity<SessionReport> getReport(@PathVariable Long sessionId) {
+        return ResponseEntity.of(sessionReportService.getReport(sessionId));
+    }
+
     @PostMapping("/log")
-    public MalpracticeEvent logEvent(@RequestBody MalpracticeEvent event) {
+    public ResponseEntity<MalpracticeEvent> logEvent(@RequestBody MalpracticeEvent event) {
+        if (event.getSessionId() == null || examSessionService.getSession(event.getSessionId()).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
         event.setTimestamp(LocalDateTime.now());
 
         // Handle Snapshot Saving
         if (event.getSnapshotData() != null && !event.getSnapshotData().isEmpty()) {
             try {
-                String base64Image = event.getSnapshotData().split(",")[1]; // Remove header
-                byte[] imageBytes = Base64.getDecoder().decode(base64Image);
-                
-                String filename = "evidence_" + System.currentTimeMillis() + "_" + UUID.randomUUID() + ".jpg";
-                Path path = Paths.get("src/main/resources/static/evidence/" + filename);
-                
-                // Ensure directory exists
-                Files.createDirectories(path.getParent());
-                Files.write(path, imageBytes);
-                
-                event.setSnapshotUrl("/evidence/" + filename);
+                event.setSnapshotUrl(evidenceStore.saveSnapshot(event.getSnapshotData()));
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
 
-        return eventRepository.save(event);
+        MalpracticeEvent savedEvent = pipelineMetrics.timeSave("MalpracticeEvent", () -> eventRepository.save(event));
+        examAnalyticsService.recordEvent(savedEvent);
+        enhancedProctoringService.recordBehaviourEvent(savedEvent);
+        return ResponseEntity.ok(savedEvent);
     }
 
     @GetMapping("/events/{sessionId}")
@@ -75,6 +111,11 @@ public class ProctorController {
         return eventRepository.findBySessionId(sessionId);
     }
 
+    @GetMapping("/analytics/{examCode}")
+    public ResponseEntity<Object> getExamAnalytics(@PathVariable String examCode) {
+        return ResponseEntity.ok(examAnalyticsService.getExamAnalytics(examCode));
+    }
+
     @GetMapping("/sessions")
     public List<ExamSession> getAllSessions() {
         return sessionRepository.findAll();
@@ -85,30 +126,49 @@ public class ProctorController {
     @PostMapping("/gemini/analyze-image/{sessionId}")
     public CompletableFuture<ResponseEntity<Object>> analyzeImageWithGemini(
             @PathVariable String sessionId,
-            @RequestBody String base64Image) {
+            @RequestBody String base64Image,
+            @RequestHeader(value = "X-Capture-Timestamp", required = false) Long captureTimestamp,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
         
-        return enhancedProctoringService.analyzeImageAsync(sessionId, base64Image)
+        if (!isKnownSession(sessionId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        FrameTrace trace = frameTracer.start(sessionId, "IMAGE_ANALYSIS", traceId, captureTimestamp);
+        return enhancedProctoringService.joinImageAsync(sessionId, base64Image, trace)
             .thenApply(result -> ResponseEntity.ok(result));
     }
 
     @PostMapping("/gemini/analyze-audio/{sessionId}")
     public CompletableFuture<ResponseEntity<Object>> analyzeAudioWithGemini(
             @PathVariable String sessionId,
-            @RequestBody String base64Audio) {
+            @RequestBody String base64Audio,
+            @RequestHeader(value = "X-Capture-Timestamp", required = false) Long captureTimestamp,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
         
-        return enhancedProctoringService.analyzeAudioAsync(sessionId, base64Audio)
+        if (!isKnownSession(sessionId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        FrameTrace trace = frameTracer.start(sessionId, "AUDIO_ANALYSIS", traceId, captureTimestamp);
+        return enhancedProctoringService.analyzeAudioAsync(sessionId, base64Audio, trace)
             .thenApply(result -> ResponseEntity.ok(result));
     }
 
     @PostMapping("/gemini/analyze-multimodal/{sessionId}")
     public CompletableFuture<ResponseEntity<Object>> analyzeMultimodalWithGemini(
             @PathVariable String sessionId,
-            @RequestBody MultimodalRequest request) {
+            @RequestBody MultimodalRequest request,
+            @RequestHeader(value = "X-Capture-Timestamp", required = false) Long captureTimestamp,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
         
+        if (!isKnownSession(sessionId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        FrameTrace trace = frameTracer.start(sessionId, "MULTIMODAL_ANALYSIS", traceId, captureTimestamp);
         return enhancedProctoringService.analyzeMultimodalAsync(
             sessionId, 
             request.getBase64Image(), 
-            request.getBase64Audio()
+            request.getBase64Audio(),
+            trace
         ).thenApply(result -> ResponseEntity.ok(result));
     }
     
@@ -124,12 +184,35 @@ public class ProctorController {
         return ResponseEntity.ok(enhancedProctoringService.getRecentViolations(sessionId, limit));
     }
     
+    @GetMapping("/risk/{sessionId}")
+    public ResponseEntity<RiskAssessment> getSessionRisk(@PathVariable String sessionId) {
+        return ResponseEntity.ofNullable(riskCorrelator.current(sessionId));
+    }
+
+    @GetMapping("/traces/slowest")
+    public List<FrameTrace> getSlowestTraces(@RequestParam(defaultValue = "20") int limit) {
+        return frameTracer.getSlowestTraces(limit);
+    }
+    
+    @GetMapping("/traces/session/{sessionId}")
+    public ResponseEntity<Object> getSessionLatency(@PathVariable String sessionId) {
+        return ResponseEntity.ok(frameTracer.getSessionLatency(sessionId));
+    }
+    
     @PostMapping("/gemini/clear-session/{sessionId}")
     public ResponseEntity<String> clearSessionData(@PathVariable String sessionId) {
         enhancedProctoringService.clearSessionAnalysis(sessionId);
         return ResponseEntity.ok("Session data cleared successfully");
     }
     
+    private boolean isKnownSession(String sessionId) {
+        try {
+            return examSessionService.getSession(Long.valueOf(sessionId)).isPresent();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
     // Request class for multimodal analysis
     public static class MultimodalRequest {
         private String base64Image;
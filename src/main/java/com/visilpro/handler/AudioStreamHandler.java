@@ -0,0 +1,167 @@
+package com.visilpro.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visilpro.service.AudioAnalysisService;
+import com.visilpro.service.EnhancedProctoringService;
+import com.visilpro.service.ExamSessionService;
+import com.visilpro.service.audio.AudioRingBuffer;
+import com.visilpro.service.audio.AudioRingBufferPool;
+import com.visilpro.service.audio.Pcm16;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives 16 kHz audio from the exam page over a binary WebSocket
+ * ({@code /audio?sessionId=...}), as little-endian PCM or, with
+ * {@code encoding=mulaw}, one G.711 mu-law byte per sample. Connections for
+ * unknown exam sessions are refused. Overlapping windows are analyzed
+ * straight out of a pooled per-connection ring buffer. Windows are stamped with
+ * the client time of their first sample, so uploaded frames can be joined with
+ * the speech heard when they were captured.
+ */
+public class AudioStreamHandler extends BinaryWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudioStreamHandler.class);
+
+    private static final String RING_ATTR = "audioRing";
+    private static final String EXAM_SESSION_ATTR = "examSessionId";
+    private static final String LAST_WINDOW_ATTR = "lastWindowAt";
+    private static final String OUTBOUND_ATTR = "outbound";
+    private static final String CLOCK_OFFSET_ATTR = "clockOffset";
+    private static final String ORIGIN_ATTR = "streamOrigin";
+    private static final String MU_LAW_ATTR = "muLaw";
+
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_LIMIT = 64 * 1024;
+
+    private final AudioAnalysisService audioAnalysisService;
+    private final EnhancedProctoringService enhancedProctoringService;
+    private final ExamSessionService examSessionService;
+    private final AudioRingBufferPool ringPool;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AudioStreamHandler(AudioAnalysisService audioAnalysisService,
+                              EnhancedProctoringService enhancedProctoringService,
+                              ExamSessionService examSessionService,
+                              int maxIdleBuffers) {
+        this.audioAnalysisService = audioAnalysisService;
+        this.enhancedProctoringService = enhancedProctoringService;
+        this.examSessionService = examSessionService;
+        this.ringPool = new AudioRingBufferPool(AudioAnalysisService.STREAM_WINDOW_SAMPLES, maxIdleBuffers);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        MultiValueMap<String, String> query = session.getUri() == null ? new LinkedMultiValueMap<>()
+            : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String examSessionId = query.getFirst("sessionId");
+        if (examSessionId == null || examSessionId.isBlank()) {
+            session.close(CloseStatus.BAD_DATA.withReason("sessionId query parameter required"));
+            return;
+        }
+        if (!isKnownSession(examSessionId)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Unknown exam session"));
+            return;
+        }
+        session.getAttributes().put(EXAM_SESSION_ATTR, examSessionId);
+        session.getAttributes().put(MU_LAW_ATTR, "mulaw".equals(query.getFirst("encoding")));
+        // Frames are stamped on the client's clock, so windows are too: the page sends its time on connect
+        session.getAttributes().put(CLOCK_OFFSET_ATTR, clockOffset(query.getFirst("clientTime")));
+        session.getAttributes().put(RING_ATTR, ringPool.acquire());
+        session.getAttributes().put(LAST_WINDOW_ATTR, 0L);
+        session.getAttributes().put(OUTBOUND_ATTR,
+            new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT));
+        audioAnalysisService.openStream(examSessionId);
+        logger.info("Audio stream {} opened for session {}", session.getId(), examSessionId);
+    }
+
+    private boolean isKnownSession(String examSessionId) {
+        try {
+            return examSessionService.getSession(Long.valueOf(examSessionId)).isPresent();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Server minus client clock; 0 if the page did not send its time
+    private static long clockOffset(String clientTime) {
+        try {
+            return clientTime == null ? 0 : System.currentTimeMillis() - Long.parseLong(clientTime);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        // Messages for one connection are delivered sequentially, so the ring needs no locking
+        AudioRingBuffer ring = (AudioRingBuffer) session.getAttributes().get(RING_ATTR);
+        if (ring == null) {
+            return;
+        }
+        boolean muLaw = (Boolean) session.getAttributes().get(MU_LAW_ATTR);
+        if (!session.getAttributes().containsKey(ORIGIN_ATTR)) {
+            // Client time of the first sample; later windows are placed by sample count, not arrival
+            long frameMillis = message.getPayloadLength() / (muLaw ? 1 : 2) * 1000L / Pcm16.SAMPLE_RATE;
+            session.getAttributes().put(ORIGIN_ATTR,
+                System.currentTimeMillis() - (Long) session.getAttributes().get(CLOCK_OFFSET_ATTR) - frameMillis);
+        }
+        if (muLaw) {
+            ring.writeMuLaw(message.getPayload());
+        } else {
+            ring.write(message.getPayload());
+        }
+
+        long lastWindowAt = (Long) session.getAttributes().get(LAST_WINDOW_ATTR);
+        int window = AudioAnalysisService.STREAM_WINDOW_SAMPLES;
+        if (ring.available() < window || ring.totalWritten() - lastWindowAt < AudioAnalysisService.STREAM_HOP_SAMPLES) {
+            return;
+        }
+        session.getAttributes().put(LAST_WINDOW_ATTR, ring.totalWritten());
+
+        String examSessionId = (String) session.getAttributes().get(EXAM_SESSION_ATTR);
+        long startMillis = (Long) session.getAttributes().get(ORIGIN_ATTR)
+            + (ring.totalWritten() - window) * 1000 / Pcm16.SAMPLE_RATE;
+        audioAnalysisService.analyzeStreamWindow(ring.array(), ring.windowStart(window), window, examSessionId, startMillis)
+            .thenAccept(result -> {
+                if (result.isViolationDetected()) {
+                    Map<String, Object> analysis = enhancedProctoringService.recordStreamAudioResult(examSessionId, result);
+                    notifyClient(session, analysis);
+                }
+            });
+    }
+
+    private void notifyClient(WebSocketSession session, Map<String, Object> analysis) {
+        WebSocketSession outbound = (WebSocketSession) session.getAttributes().get(OUTBOUND_ATTR);
+        if (outbound == null || !outbound.isOpen()) {
+            return;
+        }
+        try {
+            outbound.sendMessage(new TextMessage(objectMapper.writeValueAsString(analysis)));
+        } catch (IOException e) {
+            logger.warn("Could not deliver audio verdict to stream {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        ringPool.release((AudioRingBuffer) session.getAttributes().remove(RING_ATTR));
+        String examSessionId = (String) session.getAttributes().get(EXAM_SESSION_ATTR);
+        if (examSessionId != null) {
+            audioAnalysisService.releaseSession(examSessionId);
+        }
+        logger.info("Audio stream {} closed", session.getId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.visilpro.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-period timer wheel. Tracked entries are spread round-robin over a ring
+ * of buckets and one bucket is visited per tick, so every entry is beaten once
+ * per period and the work is spread evenly across it instead of arriving in one
+ * burst. A single daemon thread drives the wheel.
+ */
+class HeartbeatWheel<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatWheel.class);
+
+    private final Set<T>[] buckets;
+    private final Map<T, Integer> bucketOf = new ConcurrentHashMap<>();
+    private final AtomicInteger nextBucket = new AtomicInteger();
+    private final Predicate<T> beat;
+    private final ScheduledExecutorService ticker;
+    private int cursor;
+
+    /**
+     * @param beat called once per period for each entry; returning {@code false} stops tracking it
+     */
+    @SuppressWarnings("unchecked")
+    HeartbeatWheel(String name, long periodMillis, int bucketCount, Predicate<T> beat) {
+        this.buckets = new Set[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.beat = beat;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = Math.max(1, periodMillis / bucketCount);
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void add(T entry) {
+        int bucket = Math.floorMod(nextBucket.getAndIncrement(), buckets.length);
+        if (bucketOf.putIfAbsent(entry, bucket) == null) {
+            buckets[bucket].add(entry);
+        }
+    }
+
+    void remove(T entry) {
+        Integer bucket = bucketOf.remove(entry);
+        if (bucket != null) {
+            buckets[bucket].remove(entry);
+        }
+    }
+
+    int size() {
+        return bucketOf.size();
+    }
+
+    private void tick() {
+        Set<T> bucket = buckets[cursor];
+        cursor = (cursor + 1) % buckets.length;
+        for (T entry : bucket) {
+            try {
+                if (!beat.test(entry)) {
+                    remove(entry);
+                }
+            } catch (RuntimeException e) {
+                // A failing entry must not cancel the wheel for everyone else
+                logger.warn("Heartbeat failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.visilpro.handler;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link RoomBus} for nodes in the same JVM. Nodes that share a {@link Hub}
+ * see each other's rooms; a bus created with its own hub is a single node and
+ * publishing is a no-op.
+ */
+public class InMemoryRoomBus implements RoomBus {
+
+    /**
+     * Room membership shared by the in-process nodes.
+     */
+    public static class Hub {
+        private final Map<String, Set<InMemoryRoomBus>> rooms = new ConcurrentHashMap<>();
+    }
+
+    private final Hub hub;
+    private volatile Listener listener;
+
+    public InMemoryRoomBus() {
+        this(new Hub());
+    }
+
+    public InMemoryRoomBus(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void joinRoom(String room) {
+        hub.rooms.computeIfAbsent(room, k -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void leaveRoom(String room) {
+        hub.rooms.computeIfPresent(room, (k, nodes) -> {
+            nodes.remove(this);
+            return nodes.isEmpty() ? null : nodes;
+        });
+    }
+
+    @Override
+    public void publish(String room, String originPeerId, String payload) {
+        Set<InMemoryRoomBus> nodes = hub.rooms.get(room);
+        if (nodes == null) {
+            return;
+        }
+        for (InMemoryRoomBus node : nodes) {
+            Listener target = node.listener;
+            if (node != this && target != null) {
+                target.deliver(room, originPeerId, payload);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        hub.rooms.values().forEach(nodes -> nodes.remove(this));
+        hub.rooms.values().removeIf(Set::isEmpty);
+    }
+}
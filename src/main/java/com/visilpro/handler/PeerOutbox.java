@@ -0,0 +1,256 @@
+package com.visilpro.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded outbound queue for one signaling peer.
+ *
+ * Relaying only enqueues, so a slow peer never holds up the sender's thread or
+ * delivery to other peers in the room. Messages are written one at a time with
+ * the container's asynchronous send, and the next write starts from the
+ * completion callback, so no thread waits on a slow socket. When the queue is
+ * full, the oldest droppable message (ICE candidates, which are superseded by
+ * later ones) is discarded. If nothing can be dropped, the peer is disconnected
+ * once the write in flight completes or times out; closing earlier would block
+ * on that write, and on the sender's thread.
+ *
+ * The outbox also tracks liveness: {@link #heartbeat(int)} pings the peer and
+ * counts beats that go unanswered until {@link #alive()} is called. A ping takes
+ * the same single writer slot as a message, so the two never overlap.
+ */
+class PeerOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerOutbox.class);
+
+    private final WebSocketSession session;
+    private final RemoteEndpoint.Async asyncRemote;
+    private final int capacity;
+    private final ArrayDeque<Entry> queue;
+    private final Timer lagTimer;
+    private final Counter droppedCounter;
+    private final Counter overflowCounter;
+
+    private boolean sending;
+    private boolean closed;
+    // Set when the peer overflowed; the writer closes the session when its current write finishes
+    private CloseStatus pendingClose;
+    private long dropped;
+    private long maxLagNanos;
+    private int missedBeats;
+
+    PeerOutbox(WebSocketSession session, int capacity, long sendTimeoutMillis, MeterRegistry meterRegistry) {
+        this.session = session;
+        this.capacity = capacity;
+        this.queue = new ArrayDeque<>(Math.min(capacity, 64));
+        this.asyncRemote = asyncRemoteOf(session, sendTimeoutMillis);
+        this.lagTimer = Timer.builder("signaling.outbound.lag")
+            .description("Time a relayed signaling message waits in a peer's queue until written")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("signaling.outbound.dropped")
+            .tag("policy", "drop-oldest")
+            .register(meterRegistry);
+        this.overflowCounter = Counter.builder("signaling.outbound.dropped")
+            .tag("policy", "disconnect")
+            .register(meterRegistry);
+    }
+
+    private static RemoteEndpoint.Async asyncRemoteOf(WebSocketSession session, long sendTimeoutMillis) {
+        if (session instanceof StandardWebSocketSession standard) {
+            Session nativeSession = standard.getNativeSession(Session.class);
+            if (nativeSession != null) {
+                RemoteEndpoint.Async async = nativeSession.getAsyncRemote();
+                async.setSendTimeout(sendTimeoutMillis);
+                return async;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queue a message for this peer without blocking.
+     */
+    void offer(PreparedSignal message) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= capacity && !dropOldestDroppable()) {
+                // A full queue means a write is in flight; its completion performs the close
+                closed = true;
+                queue.clear();
+                pendingClose = CloseStatus.SESSION_NOT_RELIABLE;
+                overflowCounter.increment();
+                logger.warn("Signaling peer {} fell {} messages behind, disconnecting", session.getId(), capacity);
+                return;
+            }
+            queue.addLast(new Entry(message, System.nanoTime()));
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+        sendNext();
+    }
+
+    private boolean dropOldestDroppable() {
+        for (Iterator<Entry> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().message().droppable()) {
+                it.remove();
+                dropped++;
+                droppedCounter.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendNext() {
+        while (true) {
+            Entry entry;
+            CloseStatus close = null;
+            synchronized (this) {
+                entry = closed ? null : queue.pollFirst();
+                if (entry == null) {
+                    sending = false;
+                    close = pendingClose;
+                    pendingClose = null;
+                }
+            }
+            if (entry == null) {
+                if (close != null) {
+                    closeQuietly(close);
+                }
+                return;
+            }
+
+            if (asyncRemote != null) {
+                try {
+                    asyncRemote.sendBinary(entry.message().bytes(), result -> {
+                        if (result.isOK()) {
+                            recordLag(entry);
+                            sendNext();
+                        } else {
+                            failed(result.getException());
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // e.g. the session closed under us; must not escape into the relaying sender
+                    failed(e);
+                }
+                return;
+            }
+
+            // Non-standard sessions have no async send; write inline
+            try {
+                session.sendMessage(new BinaryMessage(entry.message().bytes()));
+                recordLag(entry);
+            } catch (IOException e) {
+                failed(e);
+                return;
+            }
+        }
+    }
+
+    private void recordLag(Entry entry) {
+        long lag = System.nanoTime() - entry.enqueuedAt();
+        lagTimer.record(lag, TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            maxLagNanos = Math.max(maxLagNanos, lag);
+        }
+    }
+
+    private void failed(Throwable cause) {
+        synchronized (this) {
+            closed = true;
+            sending = false;
+            pendingClose = null;
+            queue.clear();
+        }
+        logger.warn("Send to signaling peer {} failed: {}", session.getId(), cause == null ? "unknown" : cause.getMessage());
+        closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            logger.debug("Error closing signaling peer {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ping the peer if it is idle. The ping holds the writer slot while it is
+     * written; messages queued meanwhile are sent after it.
+     *
+     * @return {@code false} once the peer has left {@code maxMissedBeats} pings unanswered
+     */
+    boolean heartbeat(int maxMissedBeats) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (sending) {
+                // A write in flight is already bounded by the send timeout
+                return true;
+            }
+            if (missedBeats >= maxMissedBeats) {
+                return false;
+            }
+            missedBeats++;
+            sending = true;
+        }
+        try {
+            session.sendMessage(new PingMessage());
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Ping to signaling peer {} failed: {}", session.getId(), e.getMessage());
+        }
+        sendNext();
+        return true;
+    }
+
+    /**
+     * Record that the peer answered a ping or sent us something.
+     */
+    synchronized void alive() {
+        missedBeats = 0;
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    synchronized long maxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    private record Entry(PreparedSignal message, long enqueuedAt) {
+    }
+}
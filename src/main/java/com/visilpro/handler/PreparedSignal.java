@@ -0,0 +1,40 @@
+package com.visilpro.handler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A signaling message encoded to UTF-8 once and shared by every recipient of a
+ * broadcast. Peers receive it as a binary frame over a duplicate of the same
+ * buffer, so fan-out to N subscribers does not re-encode the payload N times.
+ */
+final class PreparedSignal {
+
+    private final String payload;
+    private final ByteBuffer encoded;
+    private final boolean droppable;
+
+    /**
+     * @param droppable whether the message may be discarded when a peer falls behind
+     */
+    PreparedSignal(String payload, boolean droppable) {
+        this.payload = payload;
+        this.encoded = ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+        this.droppable = droppable;
+    }
+
+    String payload() {
+        return payload;
+    }
+
+    /**
+     * An independent view of the encoded bytes for one send.
+     */
+    ByteBuffer bytes() {
+        return encoded.duplicate();
+    }
+
+    boolean droppable() {
+        return droppable;
+    }
+}
@@ -0,0 +1,37 @@
+package com.visilpro.handler;
+
+/**
+ * Carries signaling messages between nodes so that peers of one room can be
+ * connected to different instances. Each node tells the bus which rooms it
+ * holds local peers for, and messages are only routed to nodes that hold
+ * the room.
+ */
+public interface RoomBus extends AutoCloseable {
+
+    /**
+     * Receives messages published by other nodes for rooms this node holds.
+     */
+    interface Listener {
+        void deliver(String room, String originPeerId, String payload);
+    }
+
+    void setListener(Listener listener);
+
+    /**
+     * This node now has at least one local peer in {@code room}.
+     */
+    void joinRoom(String room);
+
+    /**
+     * This node no longer has local peers in {@code room}.
+     */
+    void leaveRoom(String room);
+
+    /**
+     * Deliver {@code payload} to the peers of {@code room} held by other nodes.
+     */
+    void publish(String room, String originPeerId, String payload);
+
+    @Override
+    void close();
+}
@@ -2,62 +2,306 @@ package com.visilpro.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-public class SignalingHandler extends TextWebSocketHandler {
+/**
+ * WebRTC signaling relay. A socket joins one or more rooms (exam sessions):
+ * {@code {"type":"join","sessionId":"42"}} or, for a proctor watching many
+ * students, {@code {"type":"join","sessionIds":["42","43"]}}; {@code leave}
+ * takes the same fields. Other messages are relayed to the room named by their
+ * {@code sessionId}, or to the socket's only room when it has just one. The
+ * server itself sends to a room with {@link #publish}.
+ *
+ * Proctor alerts go to a session's alert room ({@link #alertRoom}), never to
+ * the session room the candidate is in. A socket authenticated as a proctor
+ * joins the alert room along with the session room; clients cannot name alert
+ * rooms themselves.
+ *
+ * Peers are pinged on a {@link HeartbeatWheel}; one that leaves too many pings
+ * unanswered (a laptop that went to sleep, a dropped network) is evicted so it
+ * stops costing memory and relay sends.
+ */
+public class SignalingHandler extends TextWebSocketHandler implements AutoCloseable {
+
+    private static final String OUTBOX_ATTR = "outbox";
+    private static final String ROOMS_ATTR = "rooms";
+    private static final int HEARTBEAT_BUCKETS = 32;
+    private static final String SERVER_PEER_ID = "server";
+    private static final String ALERT_ROOM_PREFIX = "proctor:";
+    private static final String PROCTOR_AUTHORITY = "ROLE_PROCTOR";
 
     // Map sessionId -> Set of WebSocketSessions
     private final Map<String, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> roomGauges = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final RoomBus roomBus;
+    private final MeterRegistry meterRegistry;
+    private final int outboxCapacity;
+    private final long sendTimeoutMillis;
+    private final int maxMissedBeats;
+    private final HeartbeatWheel<WebSocketSession> heartbeats;
+
+    public SignalingHandler(RoomBus roomBus, MeterRegistry meterRegistry, int outboxCapacity, long sendTimeoutMillis,
+                            long heartbeatIntervalMillis, int maxMissedBeats) {
+        this.roomBus = roomBus;
+        this.meterRegistry = meterRegistry;
+        this.outboxCapacity = outboxCapacity;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.maxMissedBeats = maxMissedBeats;
+        this.heartbeats = new HeartbeatWheel<>("signaling-heartbeat", heartbeatIntervalMillis, HEARTBEAT_BUCKETS, this::heartbeat);
+        Gauge.builder("signaling.connections", heartbeats, HeartbeatWheel::size)
+            .description("Open signaling connections on this node")
+            .register(meterRegistry);
+        roomBus.setListener(this::deliverFromBus);
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         // Connection established, waiting for 'join' message to assign to a room
+        session.getAttributes().put(OUTBOX_ATTR, new PeerOutbox(session, outboxCapacity, sendTimeoutMillis, meterRegistry));
+        session.getAttributes().put(ROOMS_ATTR, ConcurrentHashMap.<String>newKeySet());
+        heartbeats.add(session);
+    }
+
+    private boolean heartbeat(WebSocketSession session) {
+        PeerOutbox outbox = outboxOf(session);
+        if (session.isOpen() && outbox.heartbeat(maxMissedBeats)) {
+            return true;
+        }
+        System.out.println("Session " + session.getId() + " missed " + maxMissedBeats + " heartbeats, evicting");
+        evict(session);
+        return false;
+    }
+
+    /**
+     * Drop a peer from every room right away; a half-open socket may never report its close.
+     */
+    private void evict(WebSocketSession session) {
+        outboxOf(session).close();
+        for (String roomId : List.copyOf(roomsOf(session))) {
+            leave(session, roomId);
+        }
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            System.out.println("Error closing session " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        outboxOf(session).alive();
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        JsonNode jsonMessage = objectMapper.readTree(message.getPayload());
-        String type = jsonMessage.get("type").asText();
+        // Only 'join' and 'leave' need the full tree; everything else is relayed as received
+        long receivedAt = System.nanoTime();
+        outboxOf(session).alive();
+        String type = SignalingMessages.peekType(message.getPayload());
+        if (type == null) {
+            return;
+        }
 
         if ("join".equals(type)) {
-            String sessionId = jsonMessage.get("sessionId").asText();
-            sessions.computeIfAbsent(sessionId, k -> Collections.synchronizedSet(new HashSet<>())).add(session);
-            session.getAttributes().put("sessionId", sessionId);
-            System.out.println("Session " + session.getId() + " joined room " + sessionId);
+            boolean proctor = isProctor(session);
+            for (String roomId : roomIds(message.getPayload())) {
+                join(session, roomId);
+                if (proctor) {
+                    join(session, alertRoom(roomId));
+                }
+            }
+        } else if ("leave".equals(type)) {
+            for (String roomId : roomIds(message.getPayload())) {
+                leave(session, roomId);
+                leave(session, alertRoom(roomId));
+            }
         } else {
-            // Relay message to other peers in the same room
-            String sessionId = (String) session.getAttributes().get("sessionId");
-            if (sessionId != null && sessions.containsKey(sessionId)) {
-                for (WebSocketSession peer : sessions.get(sessionId)) {
-                    if (!peer.getId().equals(session.getId()) && peer.isOpen()) {
-                        peer.sendMessage(message);
-                    }
+            String roomId = targetRoom(session, message.getPayload());
+            Set<WebSocketSession> room = roomId != null ? sessions.get(roomId) : null;
+            if (room != null) {
+                // Encode once for every local subscriber; other nodes get the original payload
+                relayLocally(room, session.getId(), new PreparedSignal(message.getPayload(), isDroppable(type)));
+                roomBus.publish(roomId, session.getId(), message.getPayload());
+                relayTimer(type, "local").record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Send a server-originated message to every peer in a room, on this node and the others.
+     */
+    public void publish(String roomId, String payload) {
+        Set<WebSocketSession> room = sessions.get(roomId);
+        if (room != null) {
+            relayLocally(room, SERVER_PEER_ID, new PreparedSignal(payload, false));
+        }
+        roomBus.publish(roomId, SERVER_PEER_ID, payload);
+    }
+
+    /**
+     * The room that only proctors of a session are in.
+     */
+    public static String alertRoom(String sessionId) {
+        return ALERT_ROOM_PREFIX + sessionId;
+    }
+
+    private static boolean isProctor(WebSocketSession session) {
+        return session.getPrincipal() instanceof Authentication authentication
+            && authentication.getAuthorities().stream().anyMatch(a -> PROCTOR_AUTHORITY.equals(a.getAuthority()));
+    }
+
+    // Alert rooms are only joined through isProctor, never by name
+    private List<String> roomIds(String payload) throws IOException {
+        JsonNode jsonMessage = objectMapper.readTree(payload);
+        List<String> roomIds = new ArrayList<>();
+        if (jsonMessage.hasNonNull("sessionId")) {
+            roomIds.add(jsonMessage.get("sessionId").asText());
+        }
+        JsonNode many = jsonMessage.get("sessionIds");
+        if (many != null && many.isArray()) {
+            many.forEach(id -> roomIds.add(id.asText()));
+        }
+        roomIds.removeIf(id -> id.startsWith(ALERT_ROOM_PREFIX));
+        return roomIds;
+    }
+
+    /**
+     * The room a relayed message is for. Sockets in one room need not name it; sockets in
+     * several must, and may only address rooms they have joined.
+     */
+    private String targetRoom(WebSocketSession session, String payload) throws IOException {
+        Set<String> rooms = roomsOf(session);
+        if (rooms.size() == 1) {
+            return rooms.iterator().next();
+        }
+        String roomId = SignalingMessages.peekField(payload, "sessionId");
+        return roomId != null && rooms.contains(roomId) ? roomId : null;
+    }
+
+    private void join(WebSocketSession session, String roomId) {
+        sessions.compute(roomId, (id, room) -> {
+            if (room == null) {
+                // First local peer: have the bus route this room's traffic to us
+                room = ConcurrentHashMap.newKeySet();
+                roomBus.joinRoom(id);
+                roomGauges.put(id, Gauge.builder("signaling.room.connections", room, Set::size)
+                    .description("Open signaling connections in a room on this node")
+                    .tag("room", id)
+                    .register(meterRegistry));
+            }
+            room.add(session);
+            return room;
+        });
+        roomsOf(session).add(roomId);
+        System.out.println("Session " + session.getId() + " joined room " + roomId);
+    }
+
+    private void leave(WebSocketSession session, String roomId) {
+        roomsOf(session).remove(roomId);
+        sessions.computeIfPresent(roomId, (id, room) -> {
+            room.remove(session);
+            if (room.isEmpty()) {
+                roomBus.leaveRoom(id);
+                Gauge gauge = roomGauges.remove(id);
+                if (gauge != null) {
+                    meterRegistry.remove(gauge);
                 }
+                return null;
             }
+            return room;
+        });
+    }
+
+    private void deliverFromBus(String roomId, String originPeerId, String payload) {
+        Set<WebSocketSession> room = sessions.get(roomId);
+        if (room == null) {
+            return;
+        }
+        try {
+            long receivedAt = System.nanoTime();
+            String type = SignalingMessages.peekType(payload);
+            relayLocally(room, originPeerId, new PreparedSignal(payload, isDroppable(type)));
+            relayTimer(type, "bus").record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            System.out.println("Dropping malformed relayed message for room " + roomId + ": " + e.getMessage());
         }
     }
 
+    private void relayLocally(Set<WebSocketSession> room, String originPeerId, PreparedSignal signal) {
+        for (WebSocketSession peer : room) {
+            if (!peer.getId().equals(originPeerId) && peer.isOpen()) {
+                outboxOf(peer).offer(signal);
+            }
+        }
+    }
+
+    /**
+     * Time from receiving a message to having it queued for every local peer (sends complete
+     * asynchronously and are measured by {@code signaling.outbound.lag}).
+     */
+    private Timer relayTimer(String type, String source) {
+        String tag = "offer".equals(type) || "answer".equals(type) || "candidate".equals(type) ? type : "other";
+        return Timer.builder("signaling.relay")
+            .tag("type", tag)
+            .tag("source", source)
+            .register(meterRegistry);
+    }
+
+    // Stale ICE candidates are superseded by newer ones, so they may be dropped under backlog
+    private static boolean isDroppable(String type) {
+        return "candidate".equals(type);
+    }
+
+    private PeerOutbox outboxOf(WebSocketSession session) {
+        return (PeerOutbox) session.getAttributes().get(OUTBOX_ATTR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> roomsOf(WebSocketSession session) {
+        return (Set<String>) session.getAttributes().get(ROOMS_ATTR);
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        String sessionId = (String) session.getAttributes().get("sessionId");
-        if (sessionId != null && sessions.containsKey(sessionId)) {
-            sessions.get(sessionId).remove(session);
-            if (sessions.get(sessionId).isEmpty()) {
-                sessions.remove(sessionId);
+        heartbeats.remove(session);
+        PeerOutbox outbox = outboxOf(session);
+        if (outbox != null) {
+            outbox.close();
+            if (outbox.dropped() > 0 || outbox.maxLagMillis() > sendTimeoutMillis / 2) {
+                System.out.println("Session " + session.getId() + " outbound: dropped " + outbox.dropped()
+                    + ", max lag " + outbox.maxLagMillis() + " ms");
+            }
+        }
+        // The per-socket room index keeps cleanup proportional to the rooms this socket joined
+        Set<String> rooms = roomsOf(session);
+        if (rooms != null) {
+            for (String roomId : List.copyOf(rooms)) {
+                leave(session, roomId);
             }
         }
         System.out.println("Session " + session.getId() + " disconnected");
     }
+
+    @Override
+    public void close() {
+        heartbeats.close();
+    }
 }
@@ -0,0 +1,49 @@
+package com.visilpro.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Streaming peeks into signaling messages. Relayed messages (SDP offers and
+ * answers, ICE candidates) only need a top-level field or two ({@code type},
+ * and {@code sessionId} for sockets subscribed to several rooms), so the
+ * parser stops as soon as it has the field and skips nested objects without
+ * materialising them.
+ */
+final class SignalingMessages {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private SignalingMessages() {
+    }
+
+    /**
+     * @return the top-level {@code type} value, or null if absent or the payload is not an object
+     */
+    static String peekType(String payload) throws IOException {
+        return peekField(payload, "type");
+    }
+
+    /**
+     * @return the top-level scalar {@code name} as text (numbers included), or null if absent
+     */
+    static String peekField(String payload, String name) throws IOException {
+        try (JsonParser parser = JSON.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(field)) {
+                    return value != null && value.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,417 @@
+package com.visilpro.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link RoomBus} over plain TCP for a small, statically configured cluster.
+ *
+ * Every pair of nodes shares one connection, dialled by the node whose address
+ * sorts lower. Nodes announce the rooms they hold (JOIN/LEAVE) over each link,
+ * and messages for a room are written only to links whose far side holds it.
+ * Each link has a bounded outbound queue and its own writer thread, so a slow
+ * node does not block publishing; messages beyond the bound are dropped. Room
+ * announcements are never dropped: a link keeps only the latest state per
+ * room, which its writer sends ahead of queued messages.
+ *
+ * The listener binds to the host of this node's address only. A link is up
+ * once both sides have proven knowledge of the cluster's shared secret with an
+ * HMAC over fresh nonces, so the secret itself never crosses the wire. Frames:
+ * <pre>
+ *   CHALLENGE nonce                            (accepting side, unframed)
+ *   HELLO   op, address, nonce, mac            (dialling side)
+ *   WELCOME mac                                (accepting side, unframed)
+ *   JOIN    op, room
+ *   LEAVE   op, room
+ *   MESSAGE op, room, originPeerId, length, payload (UTF-8)
+ * </pre>
+ */
+public class SocketRoomBus implements RoomBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(SocketRoomBus.class);
+
+    private static final byte HELLO = 0;
+    private static final byte JOIN = 1;
+    private static final byte LEAVE = 2;
+    private static final byte MESSAGE = 3;
+    private static final byte SHUTDOWN = -1;
+    private static final byte ROOMS_CHANGED = -2;
+
+    private static final Frame ROOMS_CHANGED_FRAME = new Frame(ROOMS_CHANGED, "", null, null);
+
+    private static final int LINK_QUEUE_CAPACITY = 4096;
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 1000;
+    private static final int NONCE_BYTES = 16;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final String address;
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+    private final Set<String> localRooms = ConcurrentHashMap.newKeySet();
+    private final Map<String, Link> links = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+    private final ExecutorService threads;
+    private volatile Listener listener;
+    private volatile boolean closed;
+
+    /**
+     * @param address this node's {@code host:port}; the port is also the listen port
+     * @param peerAddresses {@code host:port} of every cluster node (this node's own entry is ignored)
+     * @param secret shared by every cluster node; links are refused to nodes that do not know it
+     */
+    public SocketRoomBus(String address, List<String> peerAddresses, String secret) throws IOException {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("A shared secret is required for the socket room bus");
+        }
+        this.address = address;
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "room-bus-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(toSocketAddress(address));
+        threads.execute(this::acceptLoop);
+
+        for (String peer : peerAddresses) {
+            if (address.compareTo(peer) < 0) {
+                threads.execute(() -> dialLoop(peer));
+            }
+        }
+        logger.info("Room bus node {} listening, peers {}", address, peerAddresses);
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void joinRoom(String room) {
+        if (localRooms.add(room)) {
+            links.values().forEach(link -> link.announce(room, true));
+        }
+    }
+
+    @Override
+    public void leaveRoom(String room) {
+        if (localRooms.remove(room)) {
+            links.values().forEach(link -> link.announce(room, false));
+        }
+    }
+
+    @Override
+    public void publish(String room, String originPeerId, String payload) {
+        Frame frame = null;
+        for (Link link : links.values()) {
+            if (link.remoteRooms.contains(room)) {
+                if (frame == null) {
+                    frame = new Frame(MESSAGE, room, originPeerId, payload.getBytes(StandardCharsets.UTF_8));
+                }
+                link.send(frame);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing room bus listener: {}", e.getMessage());
+        }
+        links.values().forEach(Link::close);
+        threads.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                threads.execute(() -> {
+                    String peer;
+                    DataInputStream in;
+                    try {
+                        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        byte[] challenge = nonce();
+                        out.write(challenge);
+                        out.flush();
+                        if (in.readByte() != HELLO) {
+                            throw new IOException("expected HELLO");
+                        }
+                        peer = in.readUTF();
+                        byte[] peerNonce = new byte[NONCE_BYTES];
+                        in.readFully(peerNonce);
+                        byte[] expected = mac("dial", challenge, peerNonce, peer);
+                        byte[] proof = new byte[expected.length];
+                        in.readFully(proof);
+                        if (!MessageDigest.isEqual(proof, expected)) {
+                            logger.warn("Rejected room bus connection from {}: bad shared secret", socket.getRemoteSocketAddress());
+                            closeQuietly(socket);
+                            return;
+                        }
+                        out.write(mac("accept", peerNonce, challenge, address));
+                        out.flush();
+                        socket.setSoTimeout(0);
+                    } catch (IOException e) {
+                        logger.debug("Rejected room bus connection: {}", e.getMessage());
+                        closeQuietly(socket);
+                        return;
+                    }
+                    try {
+                        run(new Link(peer, socket, in));
+                    } catch (IOException e) {
+                        logger.debug("Room bus link from {} failed: {}", peer, e.getMessage());
+                    }
+                });
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Room bus accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void dialLoop(String peer) {
+        while (!closed) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(toSocketAddress(peer), CONNECT_TIMEOUT_MS);
+                socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                byte[] challenge = new byte[NONCE_BYTES];
+                in.readFully(challenge);
+                byte[] ownNonce = nonce();
+                out.writeByte(HELLO);
+                out.writeUTF(address);
+                out.write(ownNonce);
+                out.write(mac("dial", challenge, ownNonce, address));
+                out.flush();
+                byte[] expected = mac("accept", ownNonce, challenge, peer);
+                byte[] proof = new byte[expected.length];
+                in.readFully(proof);
+                if (!MessageDigest.isEqual(proof, expected)) {
+                    throw new IOException("peer does not know the shared secret");
+                }
+                socket.setSoTimeout(0);
+                run(new Link(peer, socket, in));
+            } catch (IOException e) {
+                logger.debug("Room bus link to {} unavailable: {}", peer, e.getMessage());
+                closeQuietly(socket);
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Register the link, announce local rooms and read until the connection drops.
+     */
+    private void run(Link link) throws IOException {
+        Link previous = links.put(link.peer, link);
+        if (previous != null) {
+            previous.close();
+        }
+        threads.execute(link::writeLoop);
+        localRooms.forEach(room -> link.announce(room, true));
+        logger.info("Room bus link {} <-> {} up", address, link.peer);
+        try {
+            link.readLoop();
+        } finally {
+            links.remove(link.peer, link);
+            link.close();
+            logger.info("Room bus link {} <-> {} down", address, link.peer);
+        }
+    }
+
+    private byte[] nonce() {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    // The role label keeps a dialler's proof from being replayed as an acceptor's
+    private byte[] mac(String role, byte[] firstNonce, byte[] secondNonce, String sender) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secret);
+            mac.update(role.getBytes(StandardCharsets.UTF_8));
+            mac.update(firstNonce);
+            mac.update(secondNonce);
+            mac.update(sender.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " unavailable", e);
+        }
+    }
+
+    private static InetSocketAddress toSocketAddress(String hostPort) {
+        int colon = hostPort.lastIndexOf(':');
+        return new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+
+    private record Frame(byte op, String room, String origin, byte[] payload) {
+    }
+
+    private final class Link {
+        private final String peer;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Set<String> remoteRooms = ConcurrentHashMap.newKeySet();
+        private final BlockingQueue<Frame> outbound = new ArrayBlockingQueue<>(LINK_QUEUE_CAPACITY);
+        // Latest unsent announcement per room (true = JOIN), bounded by the number of rooms
+        private final Map<String, Boolean> pendingRooms = new LinkedHashMap<>();
+
+        Link(String peer, Socket socket, DataInputStream in) throws IOException {
+            this.peer = peer;
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            socket.setTcpNoDelay(true);
+        }
+
+        void send(Frame frame) {
+            if (!outbound.offer(frame)) {
+                logger.warn("Room bus link to {} is backed up, dropping {} frame for room {}", peer, frame.op(), frame.room());
+            }
+        }
+
+        /**
+         * Queue a JOIN or LEAVE. Replaces an unsent announcement for the same room, and
+         * is never dropped: the writer sends pending announcements before the next message.
+         */
+        void announce(String room, boolean joined) {
+            synchronized (pendingRooms) {
+                pendingRooms.remove(room);
+                pendingRooms.put(room, joined);
+            }
+            // Wakes an idle writer; a full queue means the writer is busy and will see the announcement anyway
+            outbound.offer(ROOMS_CHANGED_FRAME);
+        }
+
+        void readLoop() throws IOException {
+            while (true) {
+                byte op = in.readByte();
+                String room = in.readUTF();
+                switch (op) {
+                    case JOIN -> remoteRooms.add(room);
+                    case LEAVE -> remoteRooms.remove(room);
+                    case MESSAGE -> {
+                        String origin = in.readUTF();
+                        byte[] payload = new byte[in.readInt()];
+                        in.readFully(payload);
+                        Listener target = listener;
+                        if (target != null) {
+                            target.deliver(room, origin, new String(payload, StandardCharsets.UTF_8));
+                        }
+                    }
+                    default -> throw new IOException("Unknown room bus frame " + op);
+                }
+            }
+        }
+
+        void writeLoop() {
+            try {
+                while (true) {
+                    writePendingRooms();
+                    if (outbound.isEmpty()) {
+                        out.flush();
+                    }
+                    Frame frame = outbound.take();
+                    if (frame.op() == SHUTDOWN) {
+                        return;
+                    }
+                    if (frame.op() == ROOMS_CHANGED) {
+                        continue;
+                    }
+                    out.writeByte(frame.op());
+                    out.writeUTF(frame.room());
+                    if (frame.op() == MESSAGE) {
+                        out.writeUTF(frame.origin());
+                        out.writeInt(frame.payload().length);
+                        out.write(frame.payload());
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Room bus write to {} failed: {}", peer, e.getMessage());
+                closeQuietly(socket);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writePendingRooms() throws IOException {
+            while (true) {
+                String room;
+                boolean joined;
+                synchronized (pendingRooms) {
+                    Iterator<Map.Entry<String, Boolean>> oldest = pendingRooms.entrySet().iterator();
+                    if (!oldest.hasNext()) {
+                        break;
+                    }
+                    Map.Entry<String, Boolean> entry = oldest.next();
+                    room = entry.getKey();
+                    joined = entry.getValue();
+                    oldest.remove();
+                }
+                out.writeByte(joined ? JOIN : LEAVE);
+                out.writeUTF(room);
+            }
+        }
+
+        void close() {
+            outbound.clear();
+            outbound.offer(new Frame(SHUTDOWN, "", null, null));
+            closeQuietly(socket);
+        }
+    }
+}
@@ -5,16 +5,25 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    // Backs findByStudentIdAndStatus
+    @Index(name = "idx_exam_session_student_status", columnList = "studentId, status")
+})
 @Data
 public class ExamSession {
+    // Pooled sequence: Hibernate reserves 50 ids per round trip instead of one insert-time IDENTITY each
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exam_session_seq")
+    @SequenceGenerator(name = "exam_session_seq", sequenceName = "exam_session_seq", allocationSize = 50)
     private Long id;
 
+    @Column(length = 64)
     private String studentId;
+    @Column(length = 64)
     private String examCode;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    @Column(length = 16)
     private String status; // STARTED, COMPLETED, TERMINATED
 
     public Long getId() { return id; }
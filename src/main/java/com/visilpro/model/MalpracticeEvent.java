@@ -5,22 +5,36 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    // Backs findBySessionId and per-session timelines
+    @Index(name = "idx_malpractice_event_session_time", columnList = "sessionId, timestamp"),
+    // Backs recent-events-of-a-type queries, newest first: H2 cannot read an index backwards
+    @Index(name = "idx_malpractice_event_type_time", columnList = "type, timestamp DESC")
+})
 @Data
 public class MalpracticeEvent {
+    // Pooled sequence: Hibernate reserves 50 ids per round trip instead of one insert-time IDENTITY each
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "malpractice_event_seq")
+    @SequenceGenerator(name = "malpractice_event_seq", sequenceName = "malpractice_event_seq", allocationSize = 50)
     private Long id;
 
     private Long sessionId; // Links to ExamSession
+    @Column(length = 64)
     private String type; // FACE_NOT_VISIBLE, MULTIPLE_FACES, LOOKING_AWAY, AUDIO_DETECTED
     private LocalDateTime timestamp;
     private double confidenceScore;
+    @Column(length = 255)
     private String snapshotUrl; // Path to saved image evidence
     
     // Additional fields for Gemini AI analysis
+    @Column(length = 64)
     private String eventType; // AI_DETECTED_VIOLATION, MANUAL_DETECTION, etc.
+    @Column(length = 2048)
     private String description; // Detailed description from Gemini
+    @Column(length = 16)
     private String severity; // LOW, MEDIUM, HIGH, CRITICAL
+    @Column(length = 32)
     private String analysisType; // IMAGE_ANALYSIS, AUDIO_ANALYSIS, MULTIMODAL_ANALYSIS
 
     @Transient
@@ -0,0 +1,89 @@
+package com.visilpro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-of-session report, computed once when an {@link ExamSession} finishes so
+ * that review screens load it with a single primary-key read.
+ */
+@Entity
+@Data
+public class SessionReport {
+    @Id
+    private Long sessionId; // Same id as the ExamSession
+
+    @Column(length = 64)
+    private String studentId;
+    @Column(length = 64)
+    private String examCode;
+    @Column(length = 16)
+    private String status; // COMPLETED, TERMINATED
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private LocalDateTime generatedAt;
+
+    private int totalAnalyses;
+    private int violationCount;
+    private int highRiskCount;
+    private int mediumRiskCount;
+    private int eventCount;
+    @Column(length = 16)
+    private String overallRisk; // LOW, MEDIUM, HIGH
+    private boolean needsReview;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Integer> eventCounts; // Malpractice event type -> count
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<Map<String, Object>> riskTimeline; // {timestamp, source, type, confidence, riskLevel}
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> topIssues;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> evidence; // Snapshot URLs of the session's events
+
+    public Long getSessionId() { return sessionId; }
+    public void setSessionId(Long sessionId) { this.sessionId = sessionId; }
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+    public String getExamCode() { return examCode; }
+    public void setExamCode(String examCode) { this.examCode = examCode; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    public int getTotalAnalyses() { return totalAnalyses; }
+    public void setTotalAnalyses(int totalAnalyses) { this.totalAnalyses = totalAnalyses; }
+    public int getViolationCount() { return violationCount; }
+    public void setViolationCount(int violationCount) { this.violationCount = violationCount; }
+    public int getHighRiskCount() { return highRiskCount; }
+    public void setHighRiskCount(int highRiskCount) { this.highRiskCount = highRiskCount; }
+    public int getMediumRiskCount() { return mediumRiskCount; }
+    public void setMediumRiskCount(int mediumRiskCount) { this.mediumRiskCount = mediumRiskCount; }
+    public int getEventCount() { return eventCount; }
+    public void setEventCount(int eventCount) { this.eventCount = eventCount; }
+    public String getOverallRisk() { return overallRisk; }
+    public void setOverallRisk(String overallRisk) { this.overallRisk = overallRisk; }
+    public boolean isNeedsReview() { return needsReview; }
+    public void setNeedsReview(boolean needsReview) { this.needsReview = needsReview; }
+    public Map<String, Integer> getEventCounts() { return eventCounts; }
+    public void setEventCounts(Map<String, Integer> eventCounts) { this.eventCounts = eventCounts; }
+    public List<Map<String, Object>> getRiskTimeline() { return riskTimeline; }
+    public void setRiskTimeline(List<Map<String, Object>> riskTimeline) { this.riskTimeline = riskTimeline; }
+    public List<String> getTopIssues() { return topIssues; }
+    public void setTopIssues(List<String> topIssues) { this.topIssues = topIssues; }
+    public List<String> getEvidence() { return evidence; }
+    public void setEvidence(List<String> evidence) { this.evidence = evidence; }
+}
@@ -1,10 +1,23 @@
 package com.visilpro.repository;
 
 import com.visilpro.model.ExamSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ExamSessionRepository extends JpaRepository<ExamSession, Long> {
     ExamSession findByStudentIdAndStatus(String studentId, String status);
+
+    /**
+     * Sessions that ended before {@code endedBefore} and still have events in the live table.
+     */
+    @Query("SELECT s FROM ExamSession s WHERE s.status IN :statuses AND s.endTime < :endedBefore"
+        + " AND EXISTS (SELECT e.id FROM MalpracticeEvent e WHERE e.sessionId = s.id)")
+    List<ExamSession> findArchivable(Collection<String> statuses, LocalDateTime endedBefore, Pageable page);
 }
@@ -2,10 +2,17 @@ package com.visilpro.repository;
 
 import com.visilpro.model.MalpracticeEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * {@code findBySessionId} is implemented in {@link MalpracticeEventRepositoryImpl} and falls back to the event archive.
+ */
 @Repository
-public interface MalpracticeEventRepository extends JpaRepository<MalpracticeEvent, Long> {
-    List<MalpracticeEvent> findBySessionId(Long sessionId);
+public interface MalpracticeEventRepository extends JpaRepository<MalpracticeEvent, Long>, MalpracticeEventRepositoryCustom {
+
+    @Query("SELECT e FROM MalpracticeEvent e WHERE e.sessionId IN :sessionIds")
+    List<MalpracticeEvent> findLiveBySessionIdIn(Collection<Long> sessionIds);
 }
@@ -0,0 +1,12 @@
+package com.visilpro.repository;
+
+import com.visilpro.model.MalpracticeEvent;
+import java.util.List;
+
+public interface MalpracticeEventRepositoryCustom {
+
+    /**
+     * Events of a session from the live table and, for archived sessions, from the event archive.
+     */
+    List<MalpracticeEvent> findBySessionId(Long sessionId);
+}
@@ -0,0 +1,46 @@
+package com.visilpro.repository;
+
+import com.visilpro.model.MalpracticeEvent;
+import com.visilpro.repository.archive.EventArchive;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class MalpracticeEventRepositoryImpl implements MalpracticeEventRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Override
+    public List<MalpracticeEvent> findBySessionId(Long sessionId) {
+        List<MalpracticeEvent> live = entityManager
+            .createQuery("SELECT e FROM MalpracticeEvent e WHERE e.sessionId = :sessionId", MalpracticeEvent.class)
+            .setParameter("sessionId", sessionId)
+            .getResultList();
+        if (!eventArchive.contains(sessionId)) {
+            return live;
+        }
+
+        // Events logged after archiving stay live; a re-archived session may repeat ids
+        List<MalpracticeEvent> events = new ArrayList<>(live);
+        Set<Long> seen = new HashSet<>();
+        live.forEach(e -> seen.add(e.getId()));
+        for (MalpracticeEvent archived : eventArchive.read(sessionId)) {
+            if (seen.add(archived.getId())) {
+                events.add(archived);
+            }
+        }
+        events.sort(Comparator.comparing(MalpracticeEvent::getTimestamp, Comparator.nullsFirst(LocalDateTime::compareTo)));
+        return events;
+    }
+}
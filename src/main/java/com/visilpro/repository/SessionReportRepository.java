@@ -0,0 +1,9 @@
+package com.visilpro.repository;
+
+import com.visilpro.model.SessionReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SessionReportRepository extends JpaRepository<SessionReport, Long> {
+}
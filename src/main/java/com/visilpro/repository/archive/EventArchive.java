@@ -0,0 +1,486 @@
+package com.visilpro.repository.archive;
+
+import com.visilpro.model.MalpracticeEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * On-disk archive of malpractice events for finished exam sessions.
+ *
+ * Events are written in immutable segment files, one directory per day
+ * ({@code <archive.dir>/<database>/yyyy-MM-dd/segment-*.seg}). Session ids are
+ * only unique within one database, and an in-memory database starts them
+ * again at 1 on every restart, so segments are filed under an id stored in the
+ * database itself; a fresh database gets a fresh id and never sees the
+ * sessions archived from another one. A segment holds one
+ * deflate-compressed block per session followed by an index of the blocks:
+ *
+ * <pre>
+ * block*  index: int count, (long sessionId, long offset, int length, int rawLength, int events)*
+ * footer: long indexOffset, int MAGIC
+ * </pre>
+ *
+ * Segments are read through a read-only memory mapping and blocks are inflated
+ * straight from the mapping. The session-to-block index is kept in memory and
+ * rebuilt from the segment indexes on startup; each block reference holds its
+ * segment's mapping, so a reader keeps a segment readable even while it is
+ * being replaced.
+ *
+ * Every archiving run adds a small segment, so {@link #compact()} merges each
+ * day's segments into one, with one block per session and repeated events
+ * dropped. Directories of other databases (an in-memory database leaves one
+ * behind on every restart) are removed by {@link #removeOrphanedDatabases()},
+ * and {@link #dropExpired()} applies {@code archive.retention-days}.
+ */
+@Component
+public class EventArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventArchive.class);
+
+    private static final int MAGIC = 0x56504541; // "VPEA"
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES * 2 + Integer.BYTES * 3;
+
+    private record BlockRef(Path segment, MappedByteBuffer map, long offset, int length, int rawLength, int events) {
+    }
+
+    private final Map<Long, List<BlockRef>> blocks = new ConcurrentHashMap<>();
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    @Value("${archive.dir:data/archive}")
+    private String archiveDir;
+
+    // 0 keeps archived events forever
+    @Value("${archive.retention-days:0}")
+    private int retentionDays;
+
+    // Another database's directory is only removed once nothing has been written to it for this long
+    @Value("${archive.orphan-grace-ms:86400000}")
+    private long orphanGraceMillis;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Path root;
+
+    @PostConstruct
+    public void loadIndex() throws IOException {
+        root = Paths.get(archiveDir, databaseId());
+        if (!Files.isDirectory(root)) {
+            logger.info("Event archive at {} is empty", root);
+            return;
+        }
+        int segments = 0;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path segment : files.filter(p -> p.toString().endsWith(".seg")).sorted().toList()) {
+                try {
+                    register(readSegmentIndex(segment));
+                    segments++;
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Skipping unreadable archive segment {}: {}", segment, e.getMessage());
+                }
+            }
+        }
+        logger.info("Event archive at {}: {} sessions in {} segments", root, blocks.size(), segments);
+    }
+
+    public boolean contains(Long sessionId) {
+        return blocks.containsKey(sessionId);
+    }
+
+    /**
+     * Write the given sessions' events to a new segment in the partition for {@code day}.
+     * The segment is forced to disk before it becomes visible to readers.
+     */
+    public synchronized void append(LocalDate day, Map<Long, List<MalpracticeEvent>> eventsBySession) throws IOException {
+        if (eventsBySession.isEmpty()) {
+            return;
+        }
+        register(readSegmentIndex(writeSegment(root.resolve(day.toString()), eventsBySession)));
+    }
+
+    /**
+     * Merge each day's segments into one, keeping one block per session and each
+     * event once. Readers switch to the merged segment before the old ones are
+     * deleted; a crash in between leaves repeated events, which reads skip and the
+     * next compaction drops.
+     */
+    public synchronized void compact() throws IOException {
+        for (Path day : partitions()) {
+            List<Path> sources = segmentsOf(day);
+            if (sources.size() < 2) {
+                continue;
+            }
+            Map<Long, Map<Long, MalpracticeEvent>> merged = new LinkedHashMap<>();
+            List<Path> compacted = new ArrayList<>();
+            for (Path source : sources) {
+                Map<Long, List<BlockRef>> refs;
+                try {
+                    refs = readSegmentIndex(source);
+                } catch (IOException | RuntimeException e) {
+                    // Left in place, as on startup
+                    logger.warn("Not compacting unreadable archive segment {}: {}", source, e.getMessage());
+                    continue;
+                }
+                for (Map.Entry<Long, List<BlockRef>> session : refs.entrySet()) {
+                    Map<Long, MalpracticeEvent> events = merged.computeIfAbsent(session.getKey(), id -> new LinkedHashMap<>());
+                    for (BlockRef ref : session.getValue()) {
+                        List<MalpracticeEvent> decoded = new ArrayList<>(ref.events());
+                        try {
+                            decode(inflate(ref.map().slice((int) ref.offset(), ref.length()), ref.rawLength()), decoded);
+                        } catch (DataFormatException e) {
+                            throw new IOException("Corrupt block of session " + session.getKey() + " in " + source, e);
+                        }
+                        decoded.forEach(event -> events.putIfAbsent(event.getId(), event));
+                    }
+                }
+                compacted.add(source);
+            }
+            if (compacted.size() < 2) {
+                continue;
+            }
+
+            Map<Long, List<MalpracticeEvent>> bySession = new LinkedHashMap<>();
+            merged.forEach((sessionId, events) -> bySession.put(sessionId, new ArrayList<>(events.values())));
+            Map<Long, List<BlockRef>> mergedRefs = readSegmentIndex(writeSegment(day, bySession));
+            for (Map.Entry<Long, List<BlockRef>> session : mergedRefs.entrySet()) {
+                List<BlockRef> refs = new CopyOnWriteArrayList<>(session.getValue());
+                for (BlockRef ref : blocks.getOrDefault(session.getKey(), List.of())) {
+                    if (!compacted.contains(ref.segment())) {
+                        refs.add(ref);
+                    }
+                }
+                blocks.put(session.getKey(), refs);
+            }
+            // Open readers keep the old mappings; the files go now and the mappings with the last reader
+            for (Path source : compacted) {
+                deleteQuietly(source);
+            }
+            logger.info("Compacted {} archive segments of {} into one ({} sessions)", compacted.size(), day.getFileName(),
+                merged.size());
+        }
+    }
+
+    /**
+     * Delete day partitions older than {@code archive.retention-days}, if set.
+     */
+    public synchronized void dropExpired() throws IOException {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate oldestKept = LocalDate.now().minusDays(retentionDays);
+        for (Path day : partitions()) {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(day.getFileName().toString());
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (!date.isBefore(oldestKept)) {
+                continue;
+            }
+            List<Path> segments = segmentsOf(day);
+            blocks.replaceAll((sessionId, refs) -> {
+                List<BlockRef> kept = new CopyOnWriteArrayList<>(refs);
+                kept.removeIf(ref -> segments.contains(ref.segment()));
+                return kept;
+            });
+            blocks.values().removeIf(List::isEmpty);
+            segments.forEach(EventArchive::deleteQuietly);
+            deleteQuietly(day);
+            logger.info("Dropped archive partition {} ({} segments) past {} days retention", day.getFileName(),
+                segments.size(), retentionDays);
+        }
+    }
+
+    /**
+     * Delete the directories other databases left under {@code archive.dir}, once
+     * nothing has been written to them for {@code archive.orphan-grace-ms}. Their
+     * session ids mean nothing to this database, so it can never read them.
+     */
+    public void removeOrphanedDatabases() throws IOException {
+        Path parent = root.getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - orphanGraceMillis;
+        try (Stream<Path> dirs = Files.list(parent)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                if (dir.equals(root) || !isDatabaseId(dir.getFileName().toString()) || lastModified(dir) > cutoff) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(dir)) {
+                    // Deepest first, so each directory is empty when it is deleted
+                    files.sorted(Comparator.reverseOrder()).forEach(EventArchive::deleteQuietly);
+                }
+                logger.info("Removed archive directory {} of another database", dir);
+            }
+        }
+    }
+
+    private Path writeSegment(Path dir, Map<Long, List<MalpracticeEvent>> eventsBySession) throws IOException {
+        Files.createDirectories(dir);
+        Path segment = dir.resolve("segment-" + System.currentTimeMillis() + "-" + segmentSequence.incrementAndGet() + ".seg");
+        Path partial = dir.resolve(segment.getFileName() + ".tmp");
+
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        indexOut.writeInt(eventsBySession.size());
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<Long, List<MalpracticeEvent>> entry : eventsBySession.entrySet()) {
+                byte[] raw = encode(entry.getValue());
+                byte[] block = deflate(deflater, raw);
+                writeFully(channel, ByteBuffer.wrap(block));
+                indexOut.writeLong(entry.getKey());
+                indexOut.writeLong(offset);
+                indexOut.writeInt(block.length);
+                indexOut.writeInt(raw.length);
+                indexOut.writeInt(entry.getValue().size());
+                offset += block.length;
+            }
+            writeFully(channel, ByteBuffer.wrap(index.toByteArray()));
+            writeFully(channel, ByteBuffer.allocate(FOOTER_SIZE).putLong(offset).putInt(MAGIC).flip());
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(partial, segment, StandardCopyOption.ATOMIC_MOVE);
+        return segment;
+    }
+
+    /**
+     * All archived events of a session, in the order they were archived.
+     */
+    public List<MalpracticeEvent> read(Long sessionId) {
+        List<BlockRef> refs = blocks.get(sessionId);
+        if (refs == null) {
+            return List.of();
+        }
+        List<MalpracticeEvent> events = new ArrayList<>();
+        for (BlockRef ref : refs) {
+            try {
+                ByteBuffer block = ref.map().slice((int) ref.offset(), ref.length());
+                decode(inflate(block, ref.rawLength()), events);
+            } catch (IOException | DataFormatException e) {
+                logger.error("Error reading archived events of session {} from {}: {}", sessionId, ref.segment(), e.getMessage());
+            }
+        }
+        return events;
+    }
+
+    /**
+     * The id of the database this archive belongs to, created on first use of a database.
+     */
+    private String databaseId() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS archive_database (singleton INT PRIMARY KEY, id VARCHAR(36) NOT NULL)");
+        List<String> ids = jdbcTemplate.queryForList("SELECT id FROM archive_database WHERE singleton = 1", String.class);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO archive_database (singleton, id) VALUES (1, ?)", UUID.randomUUID().toString());
+        } catch (DuplicateKeyException e) {
+            // Another node sharing the database created it first
+        }
+        return jdbcTemplate.queryForObject("SELECT id FROM archive_database WHERE singleton = 1", String.class);
+    }
+
+    // The blocks of one segment by session, read through a fresh mapping of it
+    private Map<Long, List<BlockRef>> readSegmentIndex(Path segment) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            // Segments are immutable once renamed into place, so one mapping serves every reader
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int footer = map.capacity() - FOOTER_SIZE;
+        if (footer < 0 || map.getInt(footer + Long.BYTES) != MAGIC) {
+            throw new IOException("not an event archive segment");
+        }
+        Map<Long, List<BlockRef>> refs = new LinkedHashMap<>();
+        int position = (int) map.getLong(footer);
+        int count = map.getInt(position);
+        position += Integer.BYTES;
+        for (int i = 0; i < count; i++, position += INDEX_ENTRY_SIZE) {
+            BlockRef ref = new BlockRef(segment, map, map.getLong(position + Long.BYTES), map.getInt(position + 2 * Long.BYTES),
+                map.getInt(position + 2 * Long.BYTES + Integer.BYTES), map.getInt(position + 2 * Long.BYTES + 2 * Integer.BYTES));
+            refs.computeIfAbsent(map.getLong(position), k -> new ArrayList<>()).add(ref);
+        }
+        return refs;
+    }
+
+    private void register(Map<Long, List<BlockRef>> refs) {
+        refs.forEach((sessionId, sessionRefs) ->
+            blocks.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).addAll(sessionRefs));
+    }
+
+    private List<Path> partitions() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(root)) {
+            return dirs.filter(Files::isDirectory).sorted().toList();
+        }
+    }
+
+    private static List<Path> segmentsOf(Path day) throws IOException {
+        try (Stream<Path> files = Files.list(day)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static boolean isDatabaseId(String name) {
+        try {
+            return UUID.fromString(name).toString().equals(name);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static long lastModified(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.mapToLong(p -> p.toFile().lastModified()).max().orElse(0);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(ByteBuffer block, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("truncated block");
+                }
+                n += read;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] encode(List<MalpracticeEvent> events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(events.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(events.size());
+        for (MalpracticeEvent event : events) {
+            out.writeLong(event.getId());
+            out.writeLong(event.getSessionId());
+            LocalDateTime timestamp = event.getTimestamp();
+            out.writeBoolean(timestamp != null);
+            if (timestamp != null) {
+                out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(timestamp.getNano());
+            }
+            out.writeDouble(event.getConfidenceScore());
+            writeNullable(out, event.getType());
+            writeNullable(out, event.getSnapshotUrl());
+            writeNullable(out, event.getEventType());
+            writeNullable(out, event.getDescription());
+            writeNullable(out, event.getSeverity());
+            writeNullable(out, event.getAnalysisType());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] raw, List<MalpracticeEvent> into) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            MalpracticeEvent event = new MalpracticeEvent();
+            event.setId(in.readLong());
+            event.setSessionId(in.readLong());
+            if (in.readBoolean()) {
+                event.setTimestamp(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+            }
+            event.setConfidenceScore(in.readDouble());
+            event.setType(readNullable(in));
+            event.setSnapshotUrl(readNullable(in));
+            event.setEventType(readNullable(in));
+            event.setDescription(readNullable(in));
+            event.setSeverity(readNullable(in));
+            event.setAnalysisType(readNullable(in));
+            into.add(event);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -1,6 +1,7 @@
 package com.visilpro.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -8,26 +9,84 @@ import org.springframework.http.MediaType;
 import org.springframework.http.HttpHeaders;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.visilpro.service.audio.AcousticEventDetector;
+import com.visilpro.service.audio.AudioRingBuffer;
+import com.visilpro.service.audio.DirectBufferPool;
+import com.visilpro.service.audio.MfccExtractor;
+import com.visilpro.service.audio.Pcm16;
+import com.visilpro.service.audio.SpeakerTracker;
+import com.visilpro.service.audio.Transcriber;
+import com.visilpro.service.audio.VoiceActivityDetector;
+import com.visilpro.service.join.StreamWindowIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.sound.sampled.*;
-import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class AudioAnalysisService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AudioAnalysisService.class);
+
+    // Only needed for transcripts and uploaded clips, not for local VAD
     @Autowired
+    @Lazy
     private LLMAnalysisService llmAnalysisService;
 
+    @Autowired
+    private Transcriber transcriber;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Live streams are analyzed in 2 s windows that advance by 1 s
+    public static final int STREAM_WINDOW_SAMPLES = Pcm16.SAMPLE_RATE * 2;
+    public static final int STREAM_HOP_SAMPLES = Pcm16.SAMPLE_RATE;
+
+    // Frames arrive within a few seconds of capture, so a few recent speech windows per stream suffice
+    private static final int STREAM_WINDOWS_KEPT = 4;
+    private static final int MAX_STREAM_LOOKUPS = 4;
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final VoiceActivityDetector voiceActivityDetector = new VoiceActivityDetector();
+
+    // Direct buffers sized for one stream window, reused across transcription hand-offs
+    private final DirectBufferPool transcriptionBuffers = new DirectBufferPool(STREAM_WINDOW_SAMPLES * 2, 64);
+
+    // Decode buffer reused by each worker thread; grows to the largest chunk seen
+    private static final ThreadLocal<short[]> PCM_BUFFER = ThreadLocal.withInitial(() -> new short[Pcm16.SAMPLE_RATE * 3]);
+
+    // Event detectors own scratch buffers, so each worker thread gets its own
+    private static final ThreadLocal<AcousticEventDetector> ACOUSTIC_EVENTS = ThreadLocal.withInitial(AcousticEventDetector::new);
+    private static final ThreadLocal<MfccExtractor> MFCC = ThreadLocal.withInitial(MfccExtractor::new);
+    private static final ThreadLocal<float[]> SPEAKER_EMBEDDING = ThreadLocal.withInitial(() -> new float[MfccExtractor.EMBEDDING_SIZE]);
+
+    // Recent speech windows of each live stream, joined with frames by capture time
+    private final StreamWindowIndex streamWindows = new StreamWindowIndex(STREAM_WINDOWS_KEPT, MAX_STREAM_LOOKUPS);
+
+    // Online speaker clustering state per exam session
+    private final Map<String, SpeakerTracker> speakerTrackers = new ConcurrentHashMap<>();
 
     public AudioAnalysisService() {
         this.webClient = WebClient.builder().build();
         this.objectMapper = new ObjectMapper();
     }
 
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("proctoring.join.pending", streamWindows, StreamWindowIndex::waiting)
+            .description("Frames waiting for their session's audio stream to reach their capture time")
+            .register(meterRegistry);
+    }
+
     /**
      * Process real-time audio stream for violations
      */
@@ -35,15 +94,10 @@ public class AudioAnalysisService {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 // First, detect basic audio properties
-                AudioProperties properties = analyzeAudioProperties(audioData);
+                AudioProperties properties = analyzeAudioProperties(audioData, sessionContext);
                 
-                if (properties.hasMultipleVoices() || properties.hasPhoneRinging() || properties.hasKeyboardSounds()) {
-                    return new LLMAnalysisService.AnalysisResult(
-                        true, 
-                        properties.getConfidence(),
-                        "Suspicious audio detected: " + properties.getDescription(),
-                        properties.getViolationType()
-                    );
+                if (properties.isSuspicious()) {
+                    return suspiciousAudioResult(properties);
                 }
 
                 // If speech detected, transcribe and analyze with LLM
@@ -54,6 +108,7 @@ public class AudioAnalysisService {
                     }
                 }
 
+                // Silent chunks are settled here and never leave the box
                 return new LLMAnalysisService.AnalysisResult(false, 0.0, "No violations detected", "CLEAR");
                 
             } catch (Exception e) {
@@ -63,81 +118,208 @@ public class AudioAnalysisService {
     }
 
     /**
-     * Transcribe audio to text using OpenAI Whisper API
+     * Analyze the latest window of a live 16 kHz PCM stream. Local detectors run on the
+     * calling thread directly against the caller's buffer; only windows that contain
+     * speech are copied out and handed off for transcription.
      */
-    public String transcribeAudio(byte[] audioData) {
-        try {
-            // Create temporary WAV file
-            File tempFile = File.createTempFile("audio", ".wav");
-            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                fos.write(audioData);
+    public CompletableFuture<LLMAnalysisService.AnalysisResult> analyzeWindow(short[] pcm, int offset, int length, String sessionContext) {
+        return windowVerdict(pcm, offset, length, sessionContext, analyzePcm(pcm, offset, length, sessionContext));
+    }
+
+    /**
+     * Analyze a window of a session's live stream whose first sample was captured at
+     * {@code startMillis} on the client's clock, and keep it for frames captured during it.
+     */
+    public CompletableFuture<LLMAnalysisService.AnalysisResult> analyzeStreamWindow(short[] pcm, int offset, int length,
+                                                                                  String sessionId, long startMillis) {
+        AudioProperties properties = analyzePcm(pcm, offset, length, sessionId);
+        // Only speech is worth sending to the model alongside a frame
+        streamWindows.advance(sessionId, startMillis, startMillis + length * 1000L / Pcm16.SAMPLE_RATE,
+            properties.hasSpeech() ? Pcm16.wav(pcm, offset, length) : null);
+        return windowVerdict(pcm, offset, length, sessionId, properties);
+    }
+
+    /**
+     * Start keeping a session's stream windows for {@link #streamAudioAt}.
+     */
+    public void openStream(String sessionId) {
+        streamWindows.open(sessionId);
+    }
+
+    /**
+     * The streamed speech heard around {@code timestamp} (client clock) as a WAV file, or
+     * null if the session was silent then or has no stream. Waits at most {@code timeoutMillis}
+     * for the stream to reach that time.
+     */
+    public CompletableFuture<byte[]> streamAudioAt(String sessionId, long timestamp, long timeoutMillis) {
+        return streamWindows.audioAt(sessionId, timestamp, timeoutMillis);
+    }
+
+    private CompletableFuture<LLMAnalysisService.AnalysisResult> windowVerdict(short[] pcm, int offset, int length,
+                                                                             String sessionContext, AudioProperties properties) {
+        if (properties.isSuspicious()) {
+            return CompletableFuture.completedFuture(suspiciousAudioResult(properties));
+        }
+        if (!properties.hasSpeech()) {
+            return CompletableFuture.completedFuture(
+                new LLMAnalysisService.AnalysisResult(false, 0.0, "No violations detected", "CLEAR"));
+        }
+
+        // The ring is overwritten by the next frames, so the window is copied once into a pooled buffer
+        ByteBuffer audio = transcriptionBuffers.acquire(length * 2);
+        audio.asShortBuffer().put(pcm, offset, length);
+        audio.limit(length * 2);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String transcript;
+                try {
+                    transcript = transcriber.transcribe(audio);
+                } finally {
+                    transcriptionBuffers.release(audio);
+                }
+                if (!transcript.isEmpty()) {
+                    return llmAnalysisService.analyzeAudioTranscript(transcript, sessionContext);
+                }
+                return new LLMAnalysisService.AnalysisResult(false, 0.0, "No violations detected", "CLEAR");
+            } catch (Exception e) {
+                return new LLMAnalysisService.AnalysisResult(false, 0.0, "Audio analysis error: " + e.getMessage(), "ERROR");
             }
+        });
+    }
 
-            // Note: This is a simplified example. In production, you'd use proper multipart form data
-            // For now, we'll simulate transcription results
-            return simulateTranscription(audioData);
-            
-        } catch (Exception e) {
-            System.err.println("Transcription error: " + e.getMessage());
-            return "";
+    private LLMAnalysisService.AnalysisResult suspiciousAudioResult(AudioProperties properties) {
+        return new LLMAnalysisService.AnalysisResult(
+            true,
+            properties.getConfidence(),
+            "Suspicious audio detected: " + properties.getDescription(),
+            properties.getViolationType()
+        );
+    }
+
+    /**
+     * Transcribe a WAV or raw PCM chunk in memory through the configured {@link Transcriber}.
+     * The samples are handed over in pooled direct buffers, one stream window at a time,
+     * and the pieces' transcripts are joined.
+     */
+    public String transcribeAudio(byte[] audioData) {
+        int dataOffset = Math.max(0, Pcm16.wavDataOffset(audioData));
+        StringJoiner transcript = new StringJoiner(" ");
+        for (int piece = dataOffset; piece < audioData.length; piece += STREAM_WINDOW_SAMPLES * 2) {
+            int length = Math.min(STREAM_WINDOW_SAMPLES * 2, audioData.length - piece);
+            ByteBuffer audio = transcriptionBuffers.acquire(length);
+            try {
+                audio.put(audioData, piece, length).flip();
+                String text = transcriber.transcribe(audio);
+                if (!text.isEmpty()) {
+                    transcript.add(text);
+                }
+            } catch (Exception e) {
+                logger.warn("Transcription error: {}", e.getMessage());
+                return "";
+            } finally {
+                transcriptionBuffers.release(audio);
+            }
         }
+        return transcript.toString();
     }
 
     /**
      * Analyze basic audio properties without transcription
      */
-    private AudioProperties analyzeAudioProperties(byte[] audioData) {
-        try {
-            // Convert byte array to audio input stream
-            ByteArrayInputStream bais = new ByteArrayInputStream(audioData);
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(bais);
-            
-            // Analyze audio characteristics
-            AudioFormat format = audioStream.getFormat();
-            float sampleRate = format.getSampleRate();
-            int channels = format.getChannels();
-            
-            // Simple analysis based on audio characteristics
-            boolean multipleVoices = detectMultipleVoices(audioData, format);
-            boolean phoneRinging = detectPhoneRinging(audioData, format);
-            boolean keyboardSounds = detectKeyboardSounds(audioData, format);
-            boolean speech = detectSpeech(audioData, format);
-            
-            return new AudioProperties(multipleVoices, phoneRinging, keyboardSounds, speech);
-            
-        } catch (Exception e) {
+    private AudioProperties analyzeAudioProperties(byte[] audioData, String sessionId) {
+        int dataOffset = Pcm16.wavDataOffset(audioData);
+        if (dataOffset < 0) {
             return new AudioProperties(false, false, false, false);
         }
-    }
 
-    private boolean detectMultipleVoices(byte[] audioData, AudioFormat format) {
-        // Simplified detection - in production, use proper audio analysis libraries
-        // This would analyze frequency patterns, voice separation, etc.
-        return false; // Placeholder
+        short[] pcm = pcmBuffer(audioData.length - dataOffset);
+        int samples = Pcm16.decode(audioData, dataOffset, audioData.length - dataOffset, pcm);
+        return analyzePcm(pcm, 0, samples, sessionId);
     }
 
-    private boolean detectPhoneRinging(byte[] audioData, AudioFormat format) {
-        // Detect phone ringtone patterns
-        return false; // Placeholder
+    private AudioProperties analyzePcm(short[] pcm, int offset, int samples, String sessionId) {
+        boolean speech = detectSpeech(pcm, offset, samples);
+        boolean multipleVoices = speech && detectMultipleVoices(pcm, offset, samples, sessionId);
+        boolean phoneRinging = detectPhoneRinging(pcm, offset, samples);
+        boolean keyboardSounds = detectKeyboardSounds(pcm, offset, samples);
+
+        return new AudioProperties(multipleVoices, phoneRinging, keyboardSounds, speech);
     }
 
-    private boolean detectKeyboardSounds(byte[] audioData, AudioFormat format) {
-        // Detect rapid clicking/typing sounds
-        return false; // Placeholder
+    /**
+     * True when the chunk is decodable 16 kHz PCM and contains no speech. Chunks in
+     * other encodings (e.g. browser webm) cannot be judged locally and return false.
+     */
+    public boolean isSilentChunk(byte[] audioData) {
+        int dataOffset = Pcm16.wavDataOffset(audioData);
+        if (dataOffset < 0) {
+            return false;
+        }
+        short[] pcm = pcmBuffer(audioData.length - dataOffset);
+        int samples = Pcm16.decode(audioData, dataOffset, audioData.length - dataOffset, pcm);
+        return !detectSpeech(pcm, 0, samples);
     }
 
-    private boolean detectSpeech(byte[] audioData, AudioFormat format) {
-        // Basic speech detection
-        return audioData.length > 1000; // Simplified check
+    private short[] pcmBuffer(int byteLength) {
+        short[] pcm = PCM_BUFFER.get();
+        if (pcm.length < byteLength / 2) {
+            pcm = new short[byteLength / 2];
+            PCM_BUFFER.set(pcm);
+        }
+        return pcm;
     }
 
-    private String simulateTranscription(byte[] audioData) {
-        // In production, this would call OpenAI Whisper API or another transcription service
-        // For demonstration, return empty or simulate based on audio length
-        if (audioData.length > 5000) {
-            return "Sample transcribed text from audio"; // Placeholder
+    private boolean detectMultipleVoices(short[] pcm, int offset, int samples, String sessionId) {
+        if (ACOUSTIC_EVENTS.get().detectMultipleVoices(pcm, offset, samples)) {
+            return true;
+        }
+        if (sessionId == null) {
+            return false;
+        }
+        // Voices taking turns never overlap, so also track distinct speakers across the session
+        float[] embedding = SPEAKER_EMBEDDING.get();
+        if (MFCC.get().embed(pcm, offset, samples, embedding) == 0) {
+            return false;
         }
-        return "";
+        // Only the window that confirms another voice is flagged; the session keeps its speaker count
+        SpeakerTracker tracker = speakerTrackers.computeIfAbsent(sessionId, id -> new SpeakerTracker());
+        return tracker.observeConfirmsNewSpeaker(embedding);
+    }
+
+    /**
+     * Number of distinct speakers heard so far in a session.
+     */
+    public int getSpeakerCount(String sessionId) {
+        SpeakerTracker tracker = speakerTrackers.get(sessionId);
+        return tracker == null ? 0 : tracker.speakerCount();
+    }
+
+    /**
+     * Times the voice in a session's stream switched from one speaker to another.
+     */
+    public int getSpeakerChanges(String sessionId) {
+        SpeakerTracker tracker = speakerTrackers.get(sessionId);
+        return tracker == null ? 0 : tracker.speakerChanges();
+    }
+
+    /**
+     * Drop per-session audio state once a session's stream ends.
+     */
+    public void releaseSession(String sessionId) {
+        speakerTrackers.remove(sessionId);
+        streamWindows.release(sessionId);
+    }
+
+    private boolean detectPhoneRinging(short[] pcm, int offset, int samples) {
+        return ACOUSTIC_EVENTS.get().detectPhoneRinging(pcm, offset, samples);
+    }
+
+    private boolean detectKeyboardSounds(short[] pcm, int offset, int samples) {
+        return ACOUSTIC_EVENTS.get().detectKeyboardSounds(pcm, offset, samples);
+    }
+
+    private boolean detectSpeech(short[] pcm, int offset, int samples) {
+        return voiceActivityDetector.containsSpeech(pcm, offset, samples);
     }
 
     /**
@@ -158,24 +340,22 @@ public class AudioAnalysisService {
             microphone.start();
 
             byte[] buffer = new byte[4096];
-            ByteArrayOutputStream audioBuffer = new ByteArrayOutputStream();
+            AudioRingBuffer ring = new AudioRingBuffer(STREAM_WINDOW_SAMPLES);
+            long lastWindowAt = 0;
 
-            // Monitor in chunks
+            // Analyze overlapping windows straight out of the ring
             while (true) {
                 int bytesRead = microphone.read(buffer, 0, buffer.length);
-                audioBuffer.write(buffer, 0, bytesRead);
+                ring.write(buffer, 0, bytesRead);
 
-                // Process every 3 seconds of audio
-                if (audioBuffer.size() > 48000) { // ~3 seconds at 16kHz
-                    byte[] audioChunk = audioBuffer.toByteArray();
-                    processAudioStream(audioChunk, sessionId)
+                if (ring.available() == STREAM_WINDOW_SAMPLES && ring.totalWritten() - lastWindowAt >= STREAM_HOP_SAMPLES) {
+                    lastWindowAt = ring.totalWritten();
+                    analyzeWindow(ring.array(), ring.windowStart(STREAM_WINDOW_SAMPLES), STREAM_WINDOW_SAMPLES, sessionId)
                         .thenAccept(result -> {
                             if (result.isViolationDetected()) {
                                 callback.onViolationDetected(result);
                             }
                         });
-                    
-                    audioBuffer.reset();
                 }
             }
         } catch (Exception e) {
@@ -203,6 +383,7 @@ public class AudioAnalysisService {
         public boolean hasPhoneRinging() { return phoneRinging; }
         public boolean hasKeyboardSounds() { return keyboardSounds; }
         public boolean hasSpeech() { return speech; }
+        public boolean isSuspicious() { return multipleVoices || phoneRinging || keyboardSounds; }
 
         public double getConfidence() {
             if (multipleVoices) return 0.9;
@@ -2,7 +2,16 @@ package com.visilpro.service;
 
 import com.visilpro.model.MalpracticeEvent;
 import com.visilpro.repository.MalpracticeEventRepository;
+import com.visilpro.service.risk.RiskAssessment;
+import com.visilpro.service.vision.PrescreenResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,18 +20,62 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class EnhancedProctoringService {
     
     private static final Logger logger = LoggerFactory.getLogger(EnhancedProctoringService.class);
     
+    // Lazy proxies, so the faststart profile can defer the AI and audio stacks to their first analysis
     @Autowired
+    @Lazy
     private GeminiRESTService geminiRESTService;
     
     @Autowired
     private MalpracticeEventRepository malpracticeEventRepository;
     
+    @Autowired
+    @Lazy
+    private AudioAnalysisService audioAnalysisService;
+    
+    @Autowired
+    private ImageAnalysisService imageAnalysisService;
+    
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+    
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    // Boot's task executor (spring.task.execution.*) instead of the shared common pool
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor analysisExecutor;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private FrameTracer frameTracer;
+    
+    @Autowired
+    private RiskCorrelator riskCorrelator;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${multimodal.join.enabled:true}")
+    private boolean joinEnabled;
+    
+    @Value("${multimodal.join.timeout-ms:1500}")
+    private long joinTimeoutMillis;
+    
+    private final AtomicInteger queuedAnalyses = new AtomicInteger();
+    private final AtomicInteger inFlightAnalyses = new AtomicInteger();
+    
     // Store analysis results temporarily for correlation
     private final Map<String, List<Map<String, Object>>> sessionAnalysis = new ConcurrentHashMap<>();
     
@@ -32,74 +85,277 @@ public class EnhancedProctoringService {
     private static final int VIOLATION_COUNT_THRESHOLD = 3;
 
     
-    public CompletableFuture<Map<String, Object>> analyzeImageAsync(String sessionId, String base64Image) {
+    @PostConstruct
+    void init() {
+        Gauge.builder("proctoring.analysis.queued", queuedAnalyses, AtomicInteger::get)
+            .description("Analyses waiting for an executor thread")
+            .register(meterRegistry);
+        Gauge.builder("proctoring.analysis.inflight", inFlightAnalyses, AtomicInteger::get)
+            .description("Analyses currently running")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run an analysis on the executor, tracking queue depth, in-flight count and stage timings.
+     */
+    private CompletableFuture<Map<String, Object>> submitAnalysis(String type, FrameTrace trace,
+                                                                  Supplier<Map<String, Object>> analysis) {
+        long submittedAt = System.nanoTime();
+        return execute(type, trace, analysis)
+            .whenComplete((result, error) -> finishAnalysis(type, trace, result, submittedAt));
+    }
+    
+    // One step of an analysis on the executor, counted in the queued and in-flight gauges
+    private <T> CompletableFuture<T> execute(String type, FrameTrace trace, Supplier<T> step) {
+        long submittedAt = System.nanoTime();
+        queuedAnalyses.incrementAndGet();
         return CompletableFuture.supplyAsync(() -> {
+            queuedAnalyses.decrementAndGet();
+            inFlightAnalyses.incrementAndGet();
+            long startedAt = System.nanoTime();
+            pipelineMetrics.recordQueueWait(type, startedAt - submittedAt);
+            frameTracer.span(trace, "queue", submittedAt, startedAt);
             try {
-                Map<String, Object> analysis = geminiRESTService.analyzeImageForProctoring(base64Image);
-                storeAnalysisResult(sessionId, analysis);
-                
-                // Check if immediate action is needed
-                if (isHighRiskViolation(analysis)) {
-                    triggerImmediateAlert(sessionId, analysis);
-                }
-                
-                return analysis;
-            } catch (Exception e) {
-                logger.error("Error in async image analysis for session {}: {}", sessionId, e.getMessage());
-                Map<String, Object> errorResult = new HashMap<>();
-                errorResult.put("error", e.getMessage());
-                errorResult.put("violation", false);
-                return errorResult;
+                return step.get();
+            } finally {
+                inFlightAnalyses.decrementAndGet();
             }
+        }, analysisExecutor);
+    }
+    
+    private void finishAnalysis(String type, FrameTrace trace, Map<String, Object> result, long submittedAt) {
+        pipelineMetrics.recordTotal(type, result, System.nanoTime() - submittedAt);
+        frameTracer.finish(trace);
+    }
+    
+    private Map<String, Object> callModel(String type, FrameTrace trace, Supplier<Map<String, Object>> call) {
+        long start = System.nanoTime();
+        Map<String, Object> analysis = pipelineMetrics.timeModelCall(type, call);
+        frameTracer.span(trace, "model", start);
+        tagTrace(analysis, trace);
+        return analysis;
+    }
+    
+    // Before the analysis is stored, so the stored copy carries the trace id too
+    private static void tagTrace(Map<String, Object> analysis, FrameTrace trace) {
+        if (trace != null) {
+            analysis.put("traceId", trace.getTraceId());
+        }
+    }
+    
+    /**
+     * Analyse an uploaded frame together with the speech the session's audio stream
+     * carried when it was captured, or on its own if there was none. The frame is
+     * screened on the executor: a conclusive prescreen is settled and alerted right
+     * there, and only an undecided frame looks up the stream, waiting at most
+     * {@code multimodal.join.timeout-ms} for it to reach the capture time.
+     */
+    public CompletableFuture<Map<String, Object>> joinImageAsync(String sessionId, String base64Image, FrameTrace trace) {
+        if (!joinEnabled) {
+            return analyzeImageAsync(sessionId, base64Image, trace);
+        }
+        long submittedAt = System.nanoTime();
+        CompletableFuture<CompletableFuture<Map<String, Object>>> screened = execute("IMAGE_ANALYSIS", trace, () -> {
+            long prescreenStart = System.nanoTime();
+            byte[] imageData = decodeBase64Payload(base64Image);
+            PrescreenResult prescreen = imageAnalysisService.prescreen(imageData);
+            long prescreenEnd = System.nanoTime();
+            if (prescreen != null && prescreen.isConclusive()) {
+                pipelineMetrics.recordCaptureJoin("local");
+                return CompletableFuture.completedFuture(
+                    analyzeImage(sessionId, base64Image, imageData, prescreen, prescreenStart, prescreenEnd, trace));
+            }
+            return audioAnalysisService.streamAudioAt(sessionId, trace.getCaptureTimestamp(), joinTimeoutMillis)
+                .thenCompose(audio -> {
+                    frameTracer.span(trace, "join", prescreenEnd);
+                    pipelineMetrics.recordCaptureJoin(audio != null ? "paired" : "image");
+                    if (audio == null) {
+                        long now = System.nanoTime();
+                        return execute("IMAGE_ANALYSIS", trace,
+                            () -> analyzeImage(sessionId, base64Image, imageData, prescreen, now, now, trace));
+                    }
+                    String base64Audio = Base64.getEncoder().encodeToString(audio);
+                    return execute("MULTIMODAL_ANALYSIS", trace,
+                        () -> analyzeMultimodal(sessionId, base64Image, imageData, prescreen, base64Audio, trace));
+                });
         });
+        return screened.thenCompose(verdict -> verdict)
+            .whenComplete((result, error) -> finishAnalysis(result != null && result.get("type") != null
+                ? result.get("type").toString() : "IMAGE_ANALYSIS", trace, result, submittedAt));
     }
     
-    public CompletableFuture<Map<String, Object>> analyzeAudioAsync(String sessionId, String base64Audio) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Map<String, Object> analysis = geminiRESTService.analyzeAudioForProctoring(base64Audio);
-                storeAnalysisResult(sessionId, analysis);
-                
-                // Check if immediate action is needed
+    public CompletableFuture<Map<String, Object>> analyzeImageAsync(String sessionId, String base64Image, FrameTrace trace) {
+        return submitAnalysis("IMAGE_ANALYSIS", trace, () -> {
+            long prescreenStart = System.nanoTime();
+            byte[] imageData = decodeBase64Payload(base64Image);
+            PrescreenResult prescreen = imageAnalysisService.prescreen(imageData);
+            return analyzeImage(sessionId, base64Image, imageData, prescreen, prescreenStart, System.nanoTime(), trace);
+        });
+    }
+    
+    /**
+     * Settle a screened frame locally when its prescreen is conclusive, else ask the model.
+     */
+    private Map<String, Object> analyzeImage(String sessionId, String base64Image, byte[] imageData, PrescreenResult prescreen,
+                                             long prescreenStart, long prescreenEnd, FrameTrace trace) {
+        try {
+            // Blocked or crowded frames are settled locally; everything else goes to the model
+            if (prescreen != null && prescreen.isConclusive()) {
+                Map<String, Object> analysis = createPrescreenResult(prescreen);
+                pipelineMetrics.recordModelCall("IMAGE_ANALYSIS", analysis, prescreenEnd - prescreenStart);
+                frameTracer.span(trace, "model", prescreenStart, prescreenEnd);
+                tagTrace(analysis, trace);
+                RiskAssessment risk = storeAnalysisResult(sessionId, analysis, trace);
                 if (isHighRiskViolation(analysis)) {
-                    triggerImmediateAlert(sessionId, analysis);
+                    triggerImmediateAlert(sessionId, analysis, trace);
+                } else if (risk.crossed()) {
+                    triggerCorrelatedAlert(sessionId, risk, trace);
                 }
-                
                 return analysis;
-            } catch (Exception e) {
-                logger.error("Error in async audio analysis for session {}: {}", sessionId, e.getMessage());
-                Map<String, Object> errorResult = new HashMap<>();
-                errorResult.put("error", e.getMessage());
-                errorResult.put("violation", false);
-                return errorResult;
             }
+            
+            String modelImage = prepareModelImage(imageData, base64Image, prescreen, trace);
+            Map<String, Object> analysis = callModel("IMAGE_ANALYSIS", trace,
+                () -> geminiRESTService.analyzeImageForProctoring(modelImage));
+            addPrescreenFields(analysis, prescreen);
+            RiskAssessment risk = storeAnalysisResult(sessionId, analysis, trace);
+            
+            // Check if immediate action is needed, on its own or together with the session's recent verdicts
+            if (isHighRiskViolation(analysis)) {
+                triggerImmediateAlert(sessionId, analysis, trace);
+            } else if (risk.crossed()) {
+                triggerCorrelatedAlert(sessionId, risk, trace);
+            }
+            
+            return analysis;
+        } catch (Exception e) {
+            logger.error("Error in async image analysis for session {}: {}", sessionId, e.getMessage());
+            Map<String, Object> errorResult = new HashMap<>();
+            errorResult.put("error", e.getMessage());
+            errorResult.put("violation", false);
+            return errorResult;
+        }
+    }
+    
+    public CompletableFuture<Map<String, Object>> analyzeAudioAsync(String sessionId, String base64Audio, FrameTrace trace) {
+        return submitAnalysis("AUDIO_ANALYSIS", trace, () -> {
+            long vadStart = System.nanoTime();
+            byte[] audioData = decodeBase64Payload(base64Audio);
+            boolean silent = audioData != null && audioAnalysisService.isSilentChunk(audioData);
+            return analyzeAudio(sessionId, base64Audio, silent, vadStart, System.nanoTime(), trace);
         });
     }
     
-    public CompletableFuture<Map<String, Object>> analyzeMultimodalAsync(String sessionId, String base64Image, String base64Audio) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Map<String, Object> analysis = geminiRESTService.analyzeMultimodalData(base64Image, base64Audio);
-                storeAnalysisResult(sessionId, analysis);
-                
-                // Enhanced risk assessment for multimodal data
-                if (isHighRiskViolation(analysis) || isCriticalRisk(analysis)) {
-                    triggerImmediateAlert(sessionId, analysis);
-                }
-                
+    /**
+     * Settle a silent clip locally, else ask the model.
+     */
+    private Map<String, Object> analyzeAudio(String sessionId, String base64Audio, boolean silent,
+                                             long vadStart, long vadEnd, FrameTrace trace) {
+        try {
+            // Silent PCM chunks are settled locally instead of being sent to the model
+            if (silent) {
+                Map<String, Object> analysis = createSilentAudioResult();
+                pipelineMetrics.recordModelCall("AUDIO_ANALYSIS", analysis, vadEnd - vadStart);
+                frameTracer.span(trace, "model", vadStart, vadEnd);
+                tagTrace(analysis, trace);
+                storeAnalysisResult(sessionId, analysis, trace);
                 return analysis;
-            } catch (Exception e) {
-                logger.error("Error in async multimodal analysis for session {}: {}", sessionId, e.getMessage());
-                Map<String, Object> errorResult = new HashMap<>();
-                errorResult.put("error", e.getMessage());
-                errorResult.put("violation", false);
-                return errorResult;
             }
+            
+            Map<String, Object> analysis = callModel("AUDIO_ANALYSIS", trace,
+                () -> geminiRESTService.analyzeAudioForProctoring(base64Audio));
+            RiskAssessment risk = storeAnalysisResult(sessionId, analysis, trace);
+            
+            // Check if immediate action is needed, on its own or together with the session's recent verdicts
+            if (isHighRiskViolation(analysis)) {
+                triggerImmediateAlert(sessionId, analysis, trace);
+            } else if (risk.crossed()) {
+                triggerCorrelatedAlert(sessionId, risk, trace);
+            }
+            
+            return analysis;
+        } catch (Exception e) {
+            logger.error("Error in async audio analysis for session {}: {}", sessionId, e.getMessage());
+            Map<String, Object> errorResult = new HashMap<>();
+            errorResult.put("error", e.getMessage());
+            errorResult.put("violation", false);
+            return errorResult;
+        }
+    }
+    
+    public CompletableFuture<Map<String, Object>> analyzeMultimodalAsync(String sessionId, String base64Image, String base64Audio,
+                                                                         FrameTrace trace) {
+        return submitAnalysis("MULTIMODAL_ANALYSIS", trace, () -> {
+            byte[] imageData = decodeBase64Payload(base64Image);
+            return analyzeMultimodal(sessionId, base64Image, imageData, imageAnalysisService.prescreen(imageData), base64Audio, trace);
         });
     }
     
+    /**
+     * Ask the model about a frame and a clip together. The frame's prescreen, if any,
+     * sets the crop and adds the local face count and yaw to the verdict.
+     */
+    private Map<String, Object> analyzeMultimodal(String sessionId, String base64Image, byte[] imageData,
+                                                  PrescreenResult prescreen, String base64Audio, FrameTrace trace) {
+        try {
+            String modelImage = prepareModelImage(imageData, base64Image, prescreen, trace);
+            Map<String, Object> analysis = callModel("MULTIMODAL_ANALYSIS", trace,
+                () -> geminiRESTService.analyzeMultimodalData(modelImage, base64Audio));
+            addPrescreenFields(analysis, prescreen);
+            RiskAssessment risk = storeAnalysisResult(sessionId, analysis, trace);
+            
+            // Enhanced risk assessment for multimodal data
+            if (isHighRiskViolation(analysis) || isCriticalRisk(analysis)) {
+                triggerImmediateAlert(sessionId, analysis, trace);
+            } else if (risk.crossed()) {
+                triggerCorrelatedAlert(sessionId, risk, trace);
+            }
+            
+            return analysis;
+        } catch (Exception e) {
+            logger.error("Error in async multimodal analysis for session {}: {}", sessionId, e.getMessage());
+            Map<String, Object> errorResult = new HashMap<>();
+            errorResult.put("error", e.getMessage());
+            errorResult.put("violation", false);
+            return errorResult;
+        }
+    }
+    
+    private static void addPrescreenFields(Map<String, Object> analysis, PrescreenResult prescreen) {
+        if (prescreen != null) {
+            analysis.put("faces", prescreen.faces());
+            analysis.put("headYaw", prescreen.yaw());
+        }
+    }
+    
+    /**
+     * Record the verdict for a window of a live audio stream. Returns the stored analysis.
+     */
+    public Map<String, Object> recordStreamAudioResult(String sessionId, LLMAnalysisService.AnalysisResult result) {
+        Map<String, Object> analysis = new HashMap<>();
+        int confidence = (int) Math.round(result.getConfidence() * 100);
+        analysis.put("violation", result.isViolationDetected());
+        analysis.put("confidence", confidence);
+        analysis.put("issues", result.getDescription());
+        analysis.put("recommendation", result.isViolationDetected() ? "Investigate audio source" : "Continue monitoring");
+        analysis.put("riskLevel", result.isViolationDetected() ? (confidence >= HIGH_RISK_THRESHOLD ? "HIGH" : "MEDIUM") : "LOW");
+        analysis.put("violationType", result.getViolationType());
+        analysis.put("timestamp", System.currentTimeMillis());
+        analysis.put("type", "AUDIO_ANALYSIS");
+        analysis.put("model", "local-stream");
+        analysis.put("speakers", audioAnalysisService.getSpeakerCount(sessionId));
+        
+        RiskAssessment risk = storeAnalysisResult(sessionId, analysis, null);
+        if (isHighRiskViolation(analysis)) {
+            triggerImmediateAlert(sessionId, analysis, null);
+        } else if (risk.crossed()) {
+            triggerCorrelatedAlert(sessionId, risk, null);
+        }
+        return analysis;
+    }
+    
     public Map<String, Object> getSessionAnalyticsSummary(String sessionId) {
-        List<Map<String, Object>> analyses = sessionAnalysis.getOrDefault(sessionId, new ArrayList<>());
+        List<Map<String, Object>> analyses = getSessionAnalyses(sessionId);
         
         Map<String, Object> summary = new HashMap<>();
         
@@ -156,22 +412,122 @@ public class EnhancedProctoringService {
         summary.put("overallRisk", overallRisk);
         summary.put("allIssues", allIssues);
         summary.put("recommendations", recommendations);
+        RiskAssessment risk = riskCorrelator.current(sessionId);
+        summary.put("correlatedRisk", risk != null ? risk.score() : 0);
+        // Distinct voices heard on the live audio stream so far
+        summary.put("speakers", audioAnalysisService.getSpeakerCount(sessionId));
+        summary.put("speakerChanges", audioAnalysisService.getSpeakerChanges(sessionId));
         summary.put("needsReview", violationCount >= VIOLATION_COUNT_THRESHOLD || "HIGH".equals(overallRisk));
         summary.put("generatedAt", LocalDateTime.now());
         
         return summary;
     }
     
-    private void storeAnalysisResult(String sessionId, Map<String, Object> analysis) {
-        sessionAnalysis.computeIfAbsent(sessionId, k -> new ArrayList<>()).add(analysis);
-        
-        // Keep only last 50 analyses per session to prevent memory issues
+    /**
+     * A copy of the analyses kept for a session (the most recent 50).
+     */
+    public List<Map<String, Object>> getSessionAnalyses(String sessionId) {
         List<Map<String, Object>> sessionResults = sessionAnalysis.get(sessionId);
-        if (sessionResults.size() > 50) {
-            sessionResults.remove(0);
+        if (sessionResults == null) {
+            return new ArrayList<>();
+        }
+        synchronized (sessionResults) {
+            return new ArrayList<>(sessionResults);
         }
     }
     
+    private RiskAssessment storeAnalysisResult(String sessionId, Map<String, Object> analysis, FrameTrace trace) {
+        long start = System.nanoTime();
+        // Scored before it is stored, so readers of the stored copy see the session risk too.
+        // Placed at server receive time: client clocks may be minutes off the server's, which
+        // stamps stream audio and logged events
+        RiskAssessment risk = riskCorrelator.observeAnalysis(sessionId, analysis,
+            trace != null ? trace.getReceivedTimestamp() : System.currentTimeMillis());
+        analysis.put("sessionRisk", risk.score());
+        // Analyses of one session complete on different executor threads
+        List<Map<String, Object>> sessionResults = sessionAnalysis.computeIfAbsent(sessionId, k -> new ArrayList<>());
+        synchronized (sessionResults) {
+            sessionResults.add(analysis);
+            
+            // Keep only last 50 analyses per session to prevent memory issues
+            if (sessionResults.size() > 50) {
+                sessionResults.remove(0);
+            }
+        }
+        examAnalyticsService.recordAnalysis(sessionId, analysis);
+        frameTracer.span(trace, "store", start);
+        return risk;
+    }
+    
+    private byte[] decodeBase64Payload(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        // Clients post the base64 string JSON-encoded, so strip the quotes if present
+        String base64 = payload.length() > 1 && payload.startsWith("\"") && payload.endsWith("\"")
+            ? payload.substring(1, payload.length() - 1)
+            : payload;
+        try {
+            return Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Base64 of the frame as sent to the model: shrunk by the image preprocessor,
+     * or the upload unchanged if it cannot be made smaller.
+     */
+    private String prepareModelImage(byte[] imageData, String base64Image, PrescreenResult prescreen, FrameTrace trace) {
+        if (imageData == null) {
+            return base64Image;
+        }
+        long start = System.nanoTime();
+        byte[] reduced = imageAnalysisService.prepareForModel(imageData, prescreen);
+        pipelineMetrics.recordImagePreprocess(imageData.length, reduced != null ? reduced.length : imageData.length,
+            System.nanoTime() - start);
+        frameTracer.span(trace, "preprocess", start);
+        return reduced != null ? Base64.getEncoder().encodeToString(reduced) : base64Image;
+    }
+    
+    private Map<String, Object> createSilentAudioResult() {
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("violation", false);
+        analysis.put("confidence", 100);
+        analysis.put("issues", "No speech detected");
+        analysis.put("recommendation", "Continue monitoring");
+        analysis.put("riskLevel", "LOW");
+        analysis.put("timestamp", System.currentTimeMillis());
+        analysis.put("type", "AUDIO_ANALYSIS");
+        analysis.put("model", "local-vad");
+        return analysis;
+    }
+    
+    private Map<String, Object> createPrescreenResult(PrescreenResult prescreen) {
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("violation", true);
+        switch (prescreen.verdict()) {
+            case MULTIPLE_FACES -> {
+                analysis.put("confidence", 80);
+                analysis.put("issues", "Multiple faces detected (" + prescreen.faces() + ")");
+                analysis.put("recommendation", "Alert proctor immediately");
+                analysis.put("riskLevel", "HIGH");
+            }
+            default -> {
+                // CAMERA_BLOCKED, the only other conclusive verdict
+                analysis.put("confidence", 85);
+                analysis.put("issues", "Camera covered or too dark");
+                analysis.put("recommendation", "Alert proctor immediately");
+                analysis.put("riskLevel", "HIGH");
+            }
+        }
+        analysis.put("faces", prescreen.faces());
+        analysis.put("timestamp", System.currentTimeMillis());
+        analysis.put("type", "IMAGE_ANALYSIS");
+        analysis.put("model", "local-prescreen");
+        return analysis;
+    }
+    
     private boolean isHighRiskViolation(Map<String, Object> analysis) {
         Boolean violation = (Boolean) analysis.get("violation");
         Integer confidence = (Integer) analysis.get("confidence");
@@ -186,17 +542,46 @@ public class EnhancedProctoringService {
         return "CRITICAL".equalsIgnoreCase(riskLevel);
     }
     
-    private void triggerImmediateAlert(String sessionId, Map<String, Object> analysis) {
+    private void triggerImmediateAlert(String sessionId, Map<String, Object> analysis, FrameTrace trace) {
+        triggerAlert(sessionId, "AI_DETECTED_VIOLATION", analysis, trace);
+    }
+    
+    /**
+     * Alert on the session's combined risk, when no single verdict was enough on its own.
+     */
+    private void triggerCorrelatedAlert(String sessionId, RiskAssessment risk, FrameTrace trace) {
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("type", "CORRELATED_RISK");
+        analysis.put("confidence", risk.score());
+        analysis.put("riskLevel", "HIGH");
+        analysis.put("issues", risk.rules().isEmpty()
+            ? "Combined risk from " + risk.signals().keySet()
+            : String.join("; ", risk.rules()));
+        triggerAlert(sessionId, "CORRELATED_RISK", analysis, trace);
+    }
+    
+    private void triggerAlert(String sessionId, String eventType, Map<String, Object> analysis, FrameTrace trace) {
         try {
+            long start = System.nanoTime();
             // Create malpractice event record
             MalpracticeEvent event = new MalpracticeEvent();
             event.setSessionId(Long.parseLong(sessionId));
-            event.setType("AI_DETECTED_VIOLATION");
+            event.setType(eventType);
+            event.setDescription(String.valueOf(analysis.get("issues")));
             event.setTimestamp(LocalDateTime.now());
             event.setConfidenceScore((Integer) analysis.get("confidence"));
             event.setSnapshotUrl("gemini-analysis-" + System.currentTimeMillis());
             
-            malpracticeEventRepository.save(event);
+            examAnalyticsService.recordEvent(pipelineMetrics.timeSave("MalpracticeEvent", () -> malpracticeEventRepository.save(event)));
+            frameTracer.span(trace, "alert", start);
+            
+            // Proctors get the alert over signaling instead of waiting for their next poll
+            long pushStart = System.nanoTime();
+            eventPublisher.publishEvent(new ProctorAlertEvent(sessionId, trace != null ? trace.getTraceId() : null,
+                trace != null ? trace.getCaptureTimestamp() : System.currentTimeMillis(), String.valueOf(analysis.get("type")),
+                analysis.get("confidence"), analysis.get("riskLevel"), analysis.get("issues")));
+            frameTracer.span(trace, "push", pushStart);
+            frameTracer.alerted(trace);
             
             logger.warn("High-risk violation detected for session {}: {}", sessionId, analysis.get("issues"));
             
@@ -205,13 +590,27 @@ public class EnhancedProctoringService {
         }
     }
     
+    /**
+     * Feed a behaviour event logged by the exam page into the session's combined
+     * risk, alerting if it takes the score over the threshold.
+     */
+    public void recordBehaviourEvent(MalpracticeEvent event) {
+        RiskAssessment risk = riskCorrelator.observeEvent(event);
+        if (risk.crossed()) {
+            triggerCorrelatedAlert(String.valueOf(event.getSessionId()), risk, null);
+        }
+    }
+    
     public void clearSessionAnalysis(String sessionId) {
         sessionAnalysis.remove(sessionId);
+        riskCorrelator.releaseSession(sessionId);
+        audioAnalysisService.releaseSession(sessionId);
+        frameTracer.releaseSession(sessionId);
         logger.info("Cleared analysis data for session: {}", sessionId);
     }
     
     public List<Map<String, Object>> getRecentViolations(String sessionId, int limit) {
-        return sessionAnalysis.getOrDefault(sessionId, new ArrayList<>())
+        return getSessionAnalyses(sessionId)
                 .stream()
                 .filter(analysis -> Boolean.TRUE.equals(analysis.get("violation")))
                 .sorted((a, b) -> Long.compare((Long) b.get("timestamp"), (Long) a.get("timestamp")))
@@ -0,0 +1,111 @@
+package com.visilpro.service;
+
+import com.visilpro.model.ExamSession;
+import com.visilpro.model.MalpracticeEvent;
+import com.visilpro.repository.ExamSessionRepository;
+import com.visilpro.repository.MalpracticeEventRepository;
+import com.visilpro.repository.archive.EventArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Moves the events of finished exam sessions out of the live table into the
+ * {@link EventArchive}, so the table only holds events of running sessions,
+ * and keeps the archive compacted.
+ */
+@Service
+public class EventArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventArchiveService.class);
+
+    private static final Set<String> FINISHED_STATUSES = Set.of("COMPLETED", "TERMINATED");
+
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+
+    @Autowired
+    private MalpracticeEventRepository eventRepository;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    // Late events (in-flight analysis, client retries) still reach the live table during this window
+    @Value("${archive.grace-ms:300000}")
+    private long graceMillis;
+
+    @Value("${archive.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:60000}", initialDelayString = "${archive.interval-ms:60000}")
+    @Transactional
+    public void archiveFinishedSessions() {
+        LocalDateTime endedBefore = LocalDateTime.now().minus(Duration.ofMillis(graceMillis));
+        List<ExamSession> finished = sessionRepository.findArchivable(FINISHED_STATUSES, endedBefore, PageRequest.of(0, batchSize));
+        if (finished.isEmpty()) {
+            return;
+        }
+
+        Map<Long, LocalDate> partitionOf = new HashMap<>();
+        finished.forEach(s -> partitionOf.put(s.getId(), s.getEndTime().toLocalDate()));
+
+        // One segment per day partition, one block per session inside it
+        Map<LocalDate, Map<Long, List<MalpracticeEvent>>> byPartition = new TreeMap<>();
+        for (MalpracticeEvent event : eventRepository.findLiveBySessionIdIn(partitionOf.keySet())) {
+            byPartition.computeIfAbsent(partitionOf.get(event.getSessionId()), d -> new LinkedHashMap<>())
+                .computeIfAbsent(event.getSessionId(), id -> new ArrayList<>())
+                .add(event);
+        }
+
+        List<Long> archivedIds = new ArrayList<>();
+        try {
+            for (Map.Entry<LocalDate, Map<Long, List<MalpracticeEvent>>> partition : byPartition.entrySet()) {
+                eventArchive.append(partition.getKey(), partition.getValue());
+                for (List<MalpracticeEvent> events : partition.getValue().values()) {
+                    events.forEach(e -> archivedIds.add(e.getId()));
+                }
+            }
+        } catch (IOException e) {
+            // Nothing is deleted; a partially written run is de-duplicated on read and retried next time
+            logger.error("Error archiving events of {} finished sessions: {}", finished.size(), e.getMessage());
+            return;
+        }
+
+        // Delete by id so an event logged after the read stays live instead of being lost
+        eventRepository.deleteAllByIdInBatch(archivedIds);
+        logger.info("Archived {} events of {} finished sessions", archivedIds.size(), finished.size());
+    }
+
+    /**
+     * Merge the small segments each archiving run adds, apply retention and remove
+     * directories left behind by other databases.
+     */
+    @Scheduled(fixedDelayString = "${archive.compaction-interval-ms:3600000}",
+        initialDelayString = "${archive.compaction-interval-ms:3600000}")
+    public void compactArchive() {
+        try {
+            eventArchive.compact();
+            eventArchive.dropExpired();
+            eventArchive.removeOrphanedDatabases();
+        } catch (IOException e) {
+            logger.error("Error compacting the event archive: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.visilpro.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Writes snapshot evidence posted with malpractice events to disk.
+ */
+@Component
+public class EvidenceStore {
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${evidence.dir:src/main/resources/static/evidence}")
+    private String evidenceDir;
+
+    /**
+     * Decode a {@code data:image/jpeg;base64,...} snapshot and store it.
+     *
+     * @return the URL the snapshot is served from
+     */
+    public String saveSnapshot(String dataUrl) throws IOException {
+        String base64Image = dataUrl.split(",")[1]; // Remove header
+        byte[] imageBytes = Base64.getDecoder().decode(base64Image);
+
+        String filename = "evidence_" + System.currentTimeMillis() + "_" + UUID.randomUUID() + ".jpg";
+        Path path = Paths.get(evidenceDir, filename);
+
+        long writeStart = System.nanoTime();
+        try {
+            // Ensure directory exists
+            Files.createDirectories(path.getParent());
+            Files.write(path, imageBytes);
+            pipelineMetrics.recordEvidenceWrite(imageBytes.length, System.nanoTime() - writeStart, true);
+        } catch (IOException e) {
+            pipelineMetrics.recordEvidenceWrite(0, System.nanoTime() - writeStart, false);
+            throw e;
+        }
+        return "/evidence/" + filename;
+    }
+}
@@ -0,0 +1,183 @@
+package com.visilpro.service;
+
+import com.visilpro.model.ExamSession;
+import com.visilpro.model.MalpracticeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exam-wide rollups per {@code examCode} and five-minute bucket: violations by
+ * type, risk level distribution and session activity.
+ *
+ * Rollups are updated incrementally as events are saved and analyses come in,
+ * so reading an exam's analytics costs the number of buckets in the retention
+ * window, not the number of candidates or events.
+ */
+@Service
+public class ExamAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAnalyticsService.class);
+
+    private static final long BUCKET_MILLIS = Duration.ofMinutes(5).toMillis();
+    private static final long RETENTION_MILLIS = Duration.ofHours(24).toMillis();
+    private static final List<String> RISK_LEVELS = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    @Autowired
+    private ExamSessionService examSessionService;
+
+    private final Map<String, ExamRollup> rollups = new ConcurrentHashMap<>();
+
+    private static class ExamRollup {
+        final AtomicInteger activeSessions = new AtomicInteger();
+        final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+        volatile long lastUpdate = System.currentTimeMillis();
+
+        Bucket bucket(long timestamp) {
+            lastUpdate = System.currentTimeMillis();
+            return buckets.computeIfAbsent(timestamp - Math.floorMod(timestamp, BUCKET_MILLIS), k -> new Bucket());
+        }
+    }
+
+    private static class Bucket {
+        final LongAdder events = new LongAdder();
+        final LongAdder analyses = new LongAdder();
+        final LongAdder sessionsStarted = new LongAdder();
+        final LongAdder sessionsFinished = new LongAdder();
+        final Map<String, LongAdder> violationsByType = new ConcurrentHashMap<>();
+        final LongAdder[] riskLevels = new LongAdder[RISK_LEVELS.size()];
+
+        Bucket() {
+            for (int i = 0; i < riskLevels.length; i++) {
+                riskLevels[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Count a saved malpractice event towards its exam's rollup.
+     */
+    public void recordEvent(MalpracticeEvent event) {
+        ExamRollup rollup = rollupOf(event.getSessionId());
+        if (rollup == null) {
+            return;
+        }
+        Bucket bucket = rollup.bucket(System.currentTimeMillis());
+        bucket.events.increment();
+        bucket.violationsByType.computeIfAbsent(String.valueOf(event.getType()), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Count an analysis verdict towards its exam's risk distribution.
+     */
+    public void recordAnalysis(String sessionId, Map<String, Object> analysis) {
+        ExamRollup rollup;
+        try {
+            rollup = rollupOf(Long.valueOf(sessionId));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (rollup == null) {
+            return;
+        }
+        Bucket bucket = rollup.bucket(System.currentTimeMillis());
+        bucket.analyses.increment();
+        Object riskLevel = analysis.get("riskLevel");
+        int level = riskLevel instanceof String s ? RISK_LEVELS.indexOf(s.toUpperCase()) : -1;
+        if (level >= 0) {
+            bucket.riskLevels[level].increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(SessionStatusChangedEvent event) {
+        ExamRollup rollup = rollupOf(event.sessionId());
+        if (rollup == null) {
+            return;
+        }
+        Bucket bucket = rollup.bucket(System.currentTimeMillis());
+        if (ExamSessionService.STARTED.equals(event.status())) {
+            rollup.activeSessions.incrementAndGet();
+            bucket.sessionsStarted.increment();
+        } else if (event.isFinished() && ExamSessionService.STARTED.equals(event.previousStatus())) {
+            rollup.activeSessions.decrementAndGet();
+            bucket.sessionsFinished.increment();
+        }
+    }
+
+    public Map<String, Object> getExamAnalytics(String examCode) {
+        ExamRollup rollup = rollups.get(examCode);
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("examCode", examCode);
+        analytics.put("bucketMinutes", BUCKET_MILLIS / 60_000);
+        analytics.put("activeSessions", rollup != null ? rollup.activeSessions.get() : 0);
+
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        Map<String, Long> violationTotals = new TreeMap<>();
+        Map<String, Long> riskTotals = new LinkedHashMap<>();
+        RISK_LEVELS.forEach(level -> riskTotals.put(level, 0L));
+        long eventTotal = 0;
+
+        if (rollup != null) {
+            long since = System.currentTimeMillis() - RETENTION_MILLIS;
+            for (Map.Entry<Long, Bucket> entry : rollup.buckets.tailMap(since).entrySet()) {
+                Bucket bucket = entry.getValue();
+                Map<String, Long> violations = new TreeMap<>();
+                bucket.violationsByType.forEach((type, count) -> violations.put(type, count.sum()));
+                Map<String, Long> risk = new LinkedHashMap<>();
+                for (int i = 0; i < RISK_LEVELS.size(); i++) {
+                    risk.put(RISK_LEVELS.get(i), bucket.riskLevels[i].sum());
+                }
+
+                Map<String, Object> point = new HashMap<>();
+                point.put("start", entry.getKey());
+                point.put("events", bucket.events.sum());
+                point.put("analyses", bucket.analyses.sum());
+                point.put("sessionsStarted", bucket.sessionsStarted.sum());
+                point.put("sessionsFinished", bucket.sessionsFinished.sum());
+                point.put("violationsByType", violations);
+                point.put("riskDistribution", risk);
+                buckets.add(point);
+
+                eventTotal += bucket.events.sum();
+                violations.forEach((type, count) -> violationTotals.merge(type, count, Long::sum));
+                risk.forEach((level, count) -> riskTotals.merge(level, count, Long::sum));
+            }
+        }
+
+        analytics.put("buckets", buckets);
+        analytics.put("totalEvents", eventTotal);
+        analytics.put("violationsByType", violationTotals);
+        analytics.put("riskDistribution", riskTotals);
+        return analytics;
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    public void pruneExpiredBuckets() {
+        long cutoff = System.currentTimeMillis() - RETENTION_MILLIS;
+        rollups.forEach((examCode, rollup) -> rollup.buckets.headMap(cutoff).clear());
+        // Drop exams that have gone quiet for a full retention window
+        rollups.entrySet().removeIf(e -> e.getValue().activeSessions.get() <= 0 && e.getValue().lastUpdate < cutoff);
+        logger.debug("Exam analytics rollups: {} exams", rollups.size());
+    }
+
+    private ExamRollup rollupOf(Long sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        // Cached lookup, so per-event cost does not include a database read
+        String examCode = examSessionService.getSession(sessionId).map(ExamSession::getExamCode).orElse(null);
+        return examCode != null ? rollups.computeIfAbsent(examCode, k -> new ExamRollup()) : null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.visilpro.service;
+
+import com.visilpro.model.ExamSession;
+import com.visilpro.repository.ExamSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Exam session lifecycle. Every status transition goes through here and is
+ * announced with a {@link SessionStatusChangedEvent}.
+ *
+ * Lookups by id and by (studentId, status) are served from bounded caches.
+ * Transitions evict the affected entries explicitly. A read that missed the
+ * cache before a transition committed can still put the old row back after
+ * the eviction, so entries also expire a short while after they are written
+ * ({@code spring.cache.caffeine.spec}).
+ */
+@Service
+public class ExamSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamSessionService.class);
+
+    public static final String STARTED = "STARTED";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String TERMINATED = "TERMINATED";
+
+    static final String SESSIONS_CACHE = "examSessions";
+    static final String SESSIONS_BY_STUDENT_CACHE = "examSessionsByStudent";
+
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public static boolean isFinished(String status) {
+        return COMPLETED.equals(status) || TERMINATED.equals(status);
+    }
+
+    @Cacheable(cacheNames = SESSIONS_CACHE, unless = "#result == null")
+    public Optional<ExamSession> getSession(Long sessionId) {
+        return sessionRepository.findById(sessionId);
+    }
+
+    @Cacheable(cacheNames = SESSIONS_BY_STUDENT_CACHE, key = "#studentId + ':' + #status", unless = "#result == null")
+    public Optional<ExamSession> findSession(String studentId, String status) {
+        return Optional.ofNullable(sessionRepository.findByStudentIdAndStatus(studentId, status));
+    }
+
+    @Transactional
+    public ExamSession startSession(ExamSession session) {
+        session.setStartTime(LocalDateTime.now());
+        session.setStatus(STARTED);
+        ExamSession savedSession = sessionRepository.save(session);
+        evict(savedSession, null);
+        eventPublisher.publishEvent(new SessionStatusChangedEvent(savedSession.getId(), null, STARTED));
+        return savedSession;
+    }
+
+    /**
+     * Finish a session as COMPLETED or TERMINATED. Ending an already finished session is a no-op.
+     */
+    @Transactional
+    public Optional<ExamSession> endSession(Long sessionId, String status) {
+        if (!isFinished(status)) {
+            throw new IllegalArgumentException("Not a final session status: " + status);
+        }
+        return sessionRepository.findById(sessionId).map(session -> {
+            String previousStatus = session.getStatus();
+            if (isFinished(previousStatus)) {
+                return session;
+            }
+            session.setEndTime(LocalDateTime.now());
+            session.setStatus(status);
+            ExamSession savedSession = sessionRepository.save(session);
+            evict(savedSession, previousStatus);
+            logger.info("Session {} {} -> {}", sessionId, previousStatus, status);
+            eventPublisher.publishEvent(new SessionStatusChangedEvent(sessionId, previousStatus, status));
+            return savedSession;
+        });
+    }
+
+    /**
+     * Evict once the transition is committed, so a read inside the transaction does not re-cache the
+     * old state. A read that loaded the old row before the commit can still put it back afterwards;
+     * that entry lives until it expires.
+     */
+    private void evict(ExamSession session, String previousStatus) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(session, previousStatus);
+                }
+            });
+        } else {
+            evictNow(session, previousStatus);
+        }
+    }
+
+    private void evictNow(ExamSession session, String previousStatus) {
+        Cache byId = cacheManager.getCache(SESSIONS_CACHE);
+        if (byId != null) {
+            byId.evict(session.getId());
+        }
+        Cache byStudent = cacheManager.getCache(SESSIONS_BY_STUDENT_CACHE);
+        if (byStudent != null && session.getStudentId() != null) {
+            byStudent.evict(session.getStudentId() + ":" + session.getStatus());
+            if (previousStatus != null) {
+                byStudent.evict(session.getStudentId() + ":" + previousStatus);
+            }
+        }
+    }
+}
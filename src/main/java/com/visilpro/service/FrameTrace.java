@@ -0,0 +1,74 @@
+package com.visilpro.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The path of one captured frame or audio chunk through the server. Spans are
+ * offsets from the client's capture time, so {@code receive} covers upload and
+ * network (plus any clock offset between client and server) and the rest are
+ * server stages: queue, model, store, alert and push.
+ */
+public class FrameTrace {
+
+    public record Span(String stage, double startMillis, double durationMillis) {
+    }
+
+    private final String traceId;
+    private final String sessionId;
+    private final String type;
+    private final long captureTimestamp;
+    private final boolean clientTimestamp;
+    private final long receivedTimestamp;
+    private final long receivedNanos;
+    private final double receiveMillis;
+    private final List<Span> spans = new ArrayList<>();
+    private volatile boolean alerted;
+    private volatile double endToEndMillis;
+
+    FrameTrace(String traceId, String sessionId, String type, long captureTimestamp, boolean clientTimestamp,
+               long receivedTimestamp, long receivedNanos, double receiveMillis) {
+        this.traceId = traceId;
+        this.sessionId = sessionId;
+        this.type = type;
+        this.captureTimestamp = captureTimestamp;
+        this.clientTimestamp = clientTimestamp;
+        this.receivedTimestamp = receivedTimestamp;
+        this.receivedNanos = receivedNanos;
+        this.receiveMillis = receiveMillis;
+        spans.add(new Span("receive", 0, receiveMillis));
+    }
+
+    /**
+     * Milliseconds since capture at the given {@link System#nanoTime()} reading.
+     */
+    double sinceCapture(long nanos) {
+        return receiveMillis + (nanos - receivedNanos) / 1e6;
+    }
+
+    synchronized void addSpan(String stage, long startNanos, long endNanos) {
+        spans.add(new Span(stage, sinceCapture(startNanos), (endNanos - startNanos) / 1e6));
+    }
+
+    void markAlerted() {
+        alerted = true;
+    }
+
+    void finish(long nanos) {
+        endToEndMillis = sinceCapture(nanos);
+    }
+
+    public String getTraceId() { return traceId; }
+    public String getSessionId() { return sessionId; }
+    public String getType() { return type; }
+    public long getCaptureTimestamp() { return captureTimestamp; }
+    public boolean isClientTimestamp() { return clientTimestamp; }
+    /** Server wall-clock time of arrival, comparable with other server-stamped events. */
+    public long getReceivedTimestamp() { return receivedTimestamp; }
+    public boolean isAlerted() { return alerted; }
+    public double getEndToEndMillis() { return endToEndMillis; }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+}
@@ -0,0 +1,184 @@
+package com.visilpro.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end tracing of captured frames and audio chunks, from the capture
+ * timestamp the client sends ({@code X-Capture-Timestamp}) to the verdict and,
+ * for violations, the alert pushed to proctors.
+ *
+ * Stage spans go to {@code proctoring.trace.stage}; capture-to-verdict and
+ * capture-to-alert go to {@code proctoring.trace.capture.to.verdict} and
+ * {@code proctoring.trace.capture.to.alert}. Per session the same two
+ * latencies are kept in fixed buckets, and the slowest traces are kept whole
+ * so their spans can be inspected.
+ */
+@Component
+public class FrameTracer {
+
+    // Capture timestamps further off than this are a wrong client clock, not a slow upload
+    private static final long MAX_CLOCK_OFFSET_MILLIS = Duration.ofMinutes(5).toMillis();
+    private static final long[] BUCKET_BOUNDS_MILLIS = {100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tracing.slowest.size:50}")
+    private int slowestSize;
+
+    private final Map<String, SessionLatency> sessionLatencies = new ConcurrentHashMap<>();
+    private final PriorityQueue<FrameTrace> slowest =
+        new PriorityQueue<>(Comparator.comparingDouble(FrameTrace::getEndToEndMillis));
+
+    private static class SessionLatency {
+        final LongAdder[] toVerdict = buckets();
+        final LongAdder[] toAlert = buckets();
+
+        static LongAdder[] buckets() {
+            LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            return buckets;
+        }
+    }
+
+    /**
+     * Start a trace when a frame or chunk arrives. Missing or implausible capture
+     * timestamps fall back to the receive time, and a missing trace id is generated.
+     */
+    public FrameTrace start(String sessionId, String type, String traceId, Long captureTimestamp) {
+        long now = System.currentTimeMillis();
+        boolean clientTimestamp = captureTimestamp != null && Math.abs(now - captureTimestamp) <= MAX_CLOCK_OFFSET_MILLIS;
+        long capturedAt = clientTimestamp ? captureTimestamp : now;
+        String id = traceId != null && !traceId.isBlank() && traceId.length() <= 64 ? traceId : UUID.randomUUID().toString();
+        FrameTrace trace = new FrameTrace(id, sessionId, type, capturedAt, clientTimestamp, now, System.nanoTime(),
+            Math.max(0, now - capturedAt));
+        stageTimer("receive", type).record(Math.max(0, now - capturedAt), TimeUnit.MILLISECONDS);
+        return trace;
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} and ends now. Traces may be null
+     * for analyses that did not come from a captured frame.
+     */
+    public void span(FrameTrace trace, String stage, long startNanos) {
+        span(trace, stage, startNanos, System.nanoTime());
+    }
+
+    public void span(FrameTrace trace, String stage, long startNanos, long endNanos) {
+        if (trace == null) {
+            return;
+        }
+        trace.addSpan(stage, startNanos, endNanos);
+        stageTimer(stage, trace.getType()).record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mark the point where a violation's alert reached the proctors' push channel.
+     */
+    public void alerted(FrameTrace trace) {
+        if (trace == null) {
+            return;
+        }
+        trace.markAlerted();
+        double millis = trace.sinceCapture(System.nanoTime());
+        endToEndTimer("proctoring.trace.capture.to.alert", trace.getType()).record((long) (millis * 1e6), TimeUnit.NANOSECONDS);
+        count(latencyOf(trace.getSessionId()).toAlert, millis);
+    }
+
+    /**
+     * Close a trace once its verdict is final.
+     */
+    public void finish(FrameTrace trace) {
+        if (trace == null) {
+            return;
+        }
+        trace.finish(System.nanoTime());
+        double millis = trace.getEndToEndMillis();
+        endToEndTimer("proctoring.trace.capture.to.verdict", trace.getType()).record((long) (millis * 1e6), TimeUnit.NANOSECONDS);
+        count(latencyOf(trace.getSessionId()).toVerdict, millis);
+
+        synchronized (slowest) {
+            if (slowest.size() < slowestSize) {
+                slowest.add(trace);
+            } else if (slowest.peek().getEndToEndMillis() < millis) {
+                slowest.poll();
+                slowest.add(trace);
+            }
+        }
+    }
+
+    /**
+     * The slowest finished traces since startup, slowest first.
+     */
+    public List<FrameTrace> getSlowestTraces(int limit) {
+        List<FrameTrace> traces;
+        synchronized (slowest) {
+            traces = new ArrayList<>(slowest);
+        }
+        traces.sort(Comparator.comparingDouble(FrameTrace::getEndToEndMillis).reversed());
+        return traces.subList(0, Math.min(Math.max(0, limit), traces.size()));
+    }
+
+    /**
+     * A session's capture-to-verdict and capture-to-alert histograms, as counts per
+     * upper bound in milliseconds ({@code "+Inf"} for the overflow bucket).
+     */
+    public Map<String, Object> getSessionLatency(String sessionId) {
+        Map<String, Object> latency = new HashMap<>();
+        SessionLatency session = sessionLatencies.get(sessionId);
+        latency.put("sessionId", sessionId);
+        latency.put("captureToVerdict", histogram(session != null ? session.toVerdict : null));
+        latency.put("captureToAlert", histogram(session != null ? session.toAlert : null));
+        return latency;
+    }
+
+    public void releaseSession(String sessionId) {
+        sessionLatencies.remove(sessionId);
+    }
+
+    private SessionLatency latencyOf(String sessionId) {
+        return sessionLatencies.computeIfAbsent(sessionId, k -> new SessionLatency());
+    }
+
+    private static void count(LongAdder[] buckets, double millis) {
+        int i = 0;
+        while (i < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+    }
+
+    private static Map<String, Long> histogram(LongAdder[] buckets) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i <= BUCKET_BOUNDS_MILLIS.length; i++) {
+            String bound = i < BUCKET_BOUNDS_MILLIS.length ? String.valueOf(BUCKET_BOUNDS_MILLIS[i]) : "+Inf";
+            histogram.put(bound, buckets != null ? buckets[i].sum() : 0L);
+        }
+        return histogram;
+    }
+
+    private Timer stageTimer(String stage, String type) {
+        return Timer.builder("proctoring.trace.stage")
+            .tag("stage", stage)
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    private Timer endToEndTimer(String name, String type) {
+        return Timer.builder(name)
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.visilpro.service;
+
+import com.visilpro.service.vision.FramePreprocessor;
+import com.visilpro.service.vision.ImagePrescreener;
+import com.visilpro.service.vision.PrescreenResult;
+import com.visilpro.service.vision.RasterPool;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * Local analysis of webcam frames that runs before, and often instead of, the
+ * vision model.
+ */
+@Service
+public class ImageAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageAnalysisService.class);
+
+    // Prescreeners own decode and detection buffers, so each worker thread gets its own
+    private static final ThreadLocal<ImagePrescreener> PRESCREENER = ThreadLocal.withInitial(ImagePrescreener::new);
+
+    @Value("${vision.prescreen.enabled:true}")
+    private boolean prescreenEnabled;
+
+    @Value("${vision.preprocess.enabled:true}")
+    private boolean preprocessEnabled;
+
+    @Value("${vision.preprocess.max-edge:512}")
+    private int preprocessMaxEdge;
+
+    @Value("${vision.preprocess.quality:0.7}")
+    private float preprocessQuality;
+
+    @Value("${vision.preprocess.crop-margin:2.5}")
+    private double preprocessCropMargin;
+
+    // Decode and scale rasters shared by all workers; one idle image per size and worker is plenty
+    private final RasterPool rasterPool = new RasterPool(16);
+
+    private ThreadLocal<FramePreprocessor> preprocessor;
+
+    @PostConstruct
+    void createPreprocessors() {
+        preprocessor = ThreadLocal.withInitial(
+            () -> new FramePreprocessor(rasterPool, preprocessMaxEdge, preprocessQuality, preprocessCropMargin));
+    }
+
+    /**
+     * Face presence and count for an encoded frame. Returns null when screening is
+     * disabled or the frame cannot be decoded, in which case the caller should ask
+     * the model.
+     */
+    public PrescreenResult prescreen(byte[] imageData) {
+        if (!prescreenEnabled || imageData == null) {
+            return null;
+        }
+        try {
+            return PRESCREENER.get().prescreen(imageData);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Frame could not be prescreened: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The frame as it should be sent to the vision model: cropped to the student
+     * when the prescreen found one face, scaled to {@code vision.preprocess.max-edge}
+     * and re-encoded. Returns null when preprocessing is disabled, fails or would
+     * not make the frame smaller; the caller then sends the original.
+     */
+    public byte[] prepareForModel(byte[] imageData, PrescreenResult prescreen) {
+        if (!preprocessEnabled || imageData == null) {
+            return null;
+        }
+        try {
+            return preprocessor.get().process(imageData, prescreen);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Frame could not be preprocessed: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.visilpro.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stages of the analysis pipeline:
+ * <ul>
+ *   <li>{@code proctoring.analysis.queue.wait} - time an analysis waits for an executor thread</li>
+ *   <li>{@code proctoring.analysis.model} - the model call (Gemini or a local detector)</li>
+ *   <li>{@code proctoring.analysis.total} - submit to verdict, including storing and alerting</li>
+ *   <li>{@code proctoring.repository.save} - JPA saves on the request path</li>
+ *   <li>{@code proctoring.evidence.write} and {@code proctoring.evidence.bytes} - snapshot files</li>
+ *   <li>{@code proctoring.image.preprocess} and {@code proctoring.image.bytes} - frames as uploaded and as sent to the model</li>
+ * </ul>
+ * Analysis meters are tagged with {@code model}, {@code type} and {@code outcome}
+ * (violation, clear or error).
+ */
+@Component
+public class PipelineMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public static String outcome(Map<String, Object> analysis) {
+        if (analysis == null || analysis.containsKey("error")) {
+            return "error";
+        }
+        return Boolean.TRUE.equals(analysis.get("violation")) ? "violation" : "clear";
+    }
+
+    private static String model(Map<String, Object> analysis) {
+        Object model = analysis != null ? analysis.get("model") : null;
+        return model != null ? model.toString() : "unknown";
+    }
+
+    public void recordQueueWait(String type, long nanos) {
+        Timer.builder("proctoring.analysis.queue.wait")
+            .tag("type", type)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time a model call and tag it with the model and verdict it returned.
+     */
+    public Map<String, Object> timeModelCall(String type, Supplier<Map<String, Object>> call) {
+        long start = System.nanoTime();
+        Map<String, Object> analysis = null;
+        try {
+            analysis = call.get();
+            return analysis;
+        } finally {
+            recordModelCall(type, analysis, System.nanoTime() - start);
+        }
+    }
+
+    public void recordModelCall(String type, Map<String, Object> analysis, long nanos) {
+        recordAnalysis("proctoring.analysis.model", type, analysis, nanos);
+    }
+
+    public void recordTotal(String type, Map<String, Object> analysis, long nanos) {
+        recordAnalysis("proctoring.analysis.total", type, analysis, nanos);
+    }
+
+    private void recordAnalysis(String name, String type, Map<String, Object> analysis, long nanos) {
+        Timer.builder(name)
+            .tag("model", model(analysis))
+            .tag("type", type)
+            .tag("outcome", outcome(analysis))
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeSave(String entity, Supplier<T> save) {
+        return Timer.builder("proctoring.repository.save")
+            .tag("entity", entity)
+            .register(meterRegistry)
+            .record(save);
+    }
+
+    public void recordEvidenceWrite(long bytes, long nanos, boolean success) {
+        Timer.builder("proctoring.evidence.write")
+            .tag("outcome", success ? "success" : "error")
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            Counter.builder("proctoring.evidence.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .increment(bytes);
+        }
+    }
+
+    /**
+     * How an uploaded frame was analysed: paired with stream audio, alone, or settled locally.
+     */
+    public void recordCaptureJoin(String outcome) {
+        Counter.builder("proctoring.join")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public void recordImagePreprocess(long uploadedBytes, long modelBytes, long nanos) {
+        Timer.builder("proctoring.image.preprocess")
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("proctoring.image.bytes")
+            .baseUnit("bytes")
+            .tag("stage", "uploaded")
+            .register(meterRegistry)
+            .record(uploadedBytes);
+        DistributionSummary.builder("proctoring.image.bytes")
+            .baseUnit("bytes")
+            .tag("stage", "model")
+            .register(meterRegistry)
+            .record(modelBytes);
+    }
+}
@@ -0,0 +1,9 @@
+package com.visilpro.service;
+
+/**
+ * Published by {@link EnhancedProctoringService} when an analysis raises an alert,
+ * so it can be pushed to the proctors watching the session.
+ */
+public record ProctorAlertEvent(String sessionId, String traceId, long captureTimestamp, String type,
+                                Object confidence, Object riskLevel, Object issues) {
+}
@@ -0,0 +1,141 @@
+package com.visilpro.service;
+
+import com.visilpro.model.MalpracticeEvent;
+import com.visilpro.service.risk.CorrelationRule;
+import com.visilpro.service.risk.RiskAssessment;
+import com.visilpro.service.risk.RiskSignal;
+import com.visilpro.service.risk.SessionRisk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Combines image, audio and behaviour verdicts of a session on one timeline.
+ * Each verdict is reduced to {@link RiskSignal}s (from its issue text and
+ * violation type, or the client's event type), which feed the session's
+ * {@link SessionRisk}. Verdicts that are harmless on their own, such as a
+ * glance away and a second voice a few seconds apart, can together take the
+ * combined score over the alert threshold.
+ */
+@Component
+public class RiskCorrelator {
+
+    // Phrases in model and detector output, checked in order; one verdict can carry several signals
+    private static final Map<String, RiskSignal> ISSUE_PHRASES = new LinkedHashMap<>();
+
+    static {
+        ISSUE_PHRASES.put("multiple faces", RiskSignal.MULTIPLE_PEOPLE);
+        ISSUE_PHRASES.put("multiple people", RiskSignal.MULTIPLE_PEOPLE);
+        ISSUE_PHRASES.put("another person", RiskSignal.MULTIPLE_PEOPLE);
+        ISSUE_PHRASES.put("multiple voices", RiskSignal.SECOND_VOICE);
+        ISSUE_PHRASES.put("multiple_voices", RiskSignal.SECOND_VOICE);
+        ISSUE_PHRASES.put("conversation", RiskSignal.SECOND_VOICE);
+        ISSUE_PHRASES.put("whisper", RiskSignal.SECOND_VOICE);
+        ISSUE_PHRASES.put("phone", RiskSignal.DEVICE);
+        ISSUE_PHRASES.put("device", RiskSignal.DEVICE);
+        ISSUE_PHRASES.put("suspicious object", RiskSignal.DEVICE);
+        ISSUE_PHRASES.put("no face", RiskSignal.FACE_ABSENT);
+        ISSUE_PHRASES.put("camera covered", RiskSignal.FACE_ABSENT);
+        ISSUE_PHRASES.put("looking away", RiskSignal.GAZE_AWAY);
+        ISSUE_PHRASES.put("eye movement", RiskSignal.GAZE_AWAY);
+        ISSUE_PHRASES.put("talking", RiskSignal.SPEECH);
+        ISSUE_PHRASES.put("speech", RiskSignal.SPEECH);
+        ISSUE_PHRASES.put("communication", RiskSignal.SPEECH);
+    }
+
+    // Event types logged by the exam page's in-browser detectors
+    private static final Map<String, RiskSignal> EVENT_TYPES = Map.of(
+        "MULTIPLE_FACES", RiskSignal.MULTIPLE_PEOPLE,
+        "PROHIBITED_OBJECT", RiskSignal.DEVICE,
+        "FACE_NOT_VISIBLE", RiskSignal.FACE_ABSENT,
+        "LOOKING_AWAY", RiskSignal.GAZE_AWAY,
+        "SUSPICIOUS_TALKING", RiskSignal.SPEECH,
+        "AUDIO_DETECTED", RiskSignal.SPEECH,
+        "FOCUS_LOST", RiskSignal.FOCUS_LOST
+    );
+
+    // Prescreen yaw beyond this counts as weak gaze evidence even in a clear verdict
+    private static final double GAZE_YAW = 0.6;
+
+    @Value("${risk.half-life-ms:60000}")
+    private long halfLifeMillis;
+
+    @Value("${risk.alert-threshold:75}")
+    private int alertThreshold;
+
+    @Value("${risk.rearm-threshold:50}")
+    private int rearmThreshold;
+
+    private final Map<String, SessionRisk> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Feed an analysis verdict observed at {@code timestamp} (server time, like behaviour events).
+     */
+    public RiskAssessment observeAnalysis(String sessionId, Map<String, Object> analysis, long timestamp) {
+        SessionRisk risk = riskOf(sessionId);
+        RiskAssessment assessment = null;
+        boolean crossed = false;
+        if (Boolean.TRUE.equals(analysis.get("violation"))) {
+            double strength = strength(analysis.get("confidence"));
+            String text = (analysis.get("issues") + " " + analysis.get("violationType")).toLowerCase(Locale.ROOT);
+            EnumSet<RiskSignal> signals = EnumSet.noneOf(RiskSignal.class);
+            for (Map.Entry<String, RiskSignal> phrase : ISSUE_PHRASES.entrySet()) {
+                if (text.contains(phrase.getKey())) {
+                    signals.add(phrase.getValue());
+                }
+            }
+            for (RiskSignal signal : signals) {
+                assessment = risk.observe(signal, strength, timestamp);
+                crossed |= assessment.crossed();
+            }
+        }
+        if (analysis.get("headYaw") instanceof Number yaw && Math.abs(yaw.doubleValue()) >= GAZE_YAW) {
+            assessment = risk.observe(RiskSignal.GAZE_AWAY, 0.5 * Math.abs(yaw.doubleValue()), timestamp);
+            crossed |= assessment.crossed();
+        }
+        if (assessment == null) {
+            return risk.current(timestamp);
+        }
+        return crossed == assessment.crossed() ? assessment
+            : new RiskAssessment(assessment.score(), crossed, assessment.signals(), assessment.rules());
+    }
+
+    /**
+     * Feed a behaviour event logged by the exam page.
+     */
+    public RiskAssessment observeEvent(MalpracticeEvent event) {
+        SessionRisk risk = riskOf(String.valueOf(event.getSessionId()));
+        long timestamp = event.getTimestamp() != null
+            ? event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : System.currentTimeMillis();
+        RiskSignal signal = event.getType() != null ? EVENT_TYPES.get(event.getType()) : null;
+        if (signal == null) {
+            return risk.current(timestamp);
+        }
+        return risk.observe(signal, Math.min(1, Math.max(0, event.getConfidenceScore())), timestamp);
+    }
+
+    /**
+     * The session's combined risk now, or null if nothing has been observed for it.
+     */
+    public RiskAssessment current(String sessionId) {
+        SessionRisk risk = sessions.get(sessionId);
+        return risk != null ? risk.current(System.currentTimeMillis()) : null;
+    }
+
+    public void releaseSession(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    private SessionRisk riskOf(String sessionId) {
+        return sessions.computeIfAbsent(sessionId,
+            k -> new SessionRisk(CorrelationRule.DEFAULT_RULES, halfLifeMillis, alertThreshold, rearmThreshold));
+    }
+
+    private static double strength(Object confidence) {
+        return confidence instanceof Number n ? Math.min(1, Math.max(0, n.doubleValue() / 100)) : 0.7;
+    }
+}
@@ -0,0 +1,141 @@
+package com.visilpro.service;
+
+import com.visilpro.model.ExamSession;
+import com.visilpro.model.MalpracticeEvent;
+import com.visilpro.model.SessionReport;
+import com.visilpro.repository.ExamSessionRepository;
+import com.visilpro.repository.MalpracticeEventRepository;
+import com.visilpro.repository.SessionReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Builds the {@link SessionReport} of a session once, in the background, when
+ * the session finishes. The in-memory analysis history is released afterwards.
+ */
+@Service
+public class SessionReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionReportService.class);
+
+    private static final int TOP_ISSUES = 5;
+    private static final int REVIEW_EVENT_THRESHOLD = 3;
+
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+
+    @Autowired
+    private MalpracticeEventRepository eventRepository;
+
+    @Autowired
+    private SessionReportRepository reportRepository;
+
+    @Autowired
+    private EnhancedProctoringService enhancedProctoringService;
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(SessionStatusChangedEvent event) {
+        if (!event.isFinished()) {
+            return;
+        }
+        try {
+            if (!reportRepository.existsById(event.sessionId())) {
+                sessionRepository.findById(event.sessionId()).ifPresent(session -> {
+                    SessionReport report = reportRepository.save(buildReport(session));
+                    logger.info("Session report for {}: risk {}, {} events", session.getId(),
+                        report.getOverallRisk(), report.getEventCount());
+                });
+            }
+        } catch (Exception e) {
+            logger.error("Error building report for session {}: {}", event.sessionId(), e.getMessage());
+        } finally {
+            enhancedProctoringService.clearSessionAnalysis(event.sessionId().toString());
+        }
+    }
+
+    public Optional<SessionReport> getReport(Long sessionId) {
+        return reportRepository.findById(sessionId);
+    }
+
+    private SessionReport buildReport(ExamSession session) {
+        String sessionId = session.getId().toString();
+        Map<String, Object> summary = enhancedProctoringService.getSessionAnalyticsSummary(sessionId);
+        List<Map<String, Object>> analyses = enhancedProctoringService.getSessionAnalyses(sessionId);
+        List<MalpracticeEvent> events = eventRepository.findBySessionId(session.getId());
+
+        SessionReport report = new SessionReport();
+        report.setSessionId(session.getId());
+        report.setStudentId(session.getStudentId());
+        report.setExamCode(session.getExamCode());
+        report.setStatus(session.getStatus());
+        report.setStartTime(session.getStartTime());
+        report.setEndTime(session.getEndTime());
+        report.setGeneratedAt(LocalDateTime.now());
+        report.setTotalAnalyses((Integer) summary.get("totalAnalyses"));
+        report.setViolationCount((Integer) summary.get("violationCount"));
+        report.setHighRiskCount((Integer) summary.get("highRiskCount"));
+        report.setMediumRiskCount((Integer) summary.get("mediumRiskCount"));
+        report.setOverallRisk((String) summary.get("overallRisk"));
+        report.setEventCount(events.size());
+
+        Map<String, Integer> eventCounts = new TreeMap<>();
+        Map<String, Integer> issueCounts = new HashMap<>();
+        List<Map<String, Object>> timeline = new ArrayList<>();
+        List<String> evidence = new ArrayList<>();
+
+        for (Map<String, Object> analysis : analyses) {
+            Map<String, Object> point = new HashMap<>();
+            point.put("timestamp", analysis.get("timestamp"));
+            point.put("source", "analysis");
+            point.put("type", analysis.get("type"));
+            point.put("confidence", analysis.get("confidence"));
+            point.put("riskLevel", analysis.get("riskLevel"));
+            timeline.add(point);
+
+            String issues = (String) analysis.get("issues");
+            if (Boolean.TRUE.equals(analysis.get("violation")) && issues != null && !issues.isEmpty()) {
+                issueCounts.merge(issues, 1, Integer::sum);
+            }
+        }
+        for (MalpracticeEvent event : events) {
+            eventCounts.merge(String.valueOf(event.getType()), 1, Integer::sum);
+            issueCounts.merge(String.valueOf(event.getType()), 1, Integer::sum);
+
+            Map<String, Object> point = new HashMap<>();
+            point.put("timestamp", event.getTimestamp() != null
+                ? event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null);
+            point.put("source", "event");
+            point.put("type", event.getType());
+            point.put("confidence", event.getConfidenceScore());
+            point.put("riskLevel", event.getSeverity());
+            timeline.add(point);
+
+            if (event.getSnapshotUrl() != null && event.getSnapshotUrl().startsWith("/evidence/")) {
+                evidence.add(event.getSnapshotUrl());
+            }
+        }
+        timeline.sort(Comparator.comparing(p -> (Long) p.get("timestamp"), Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<String> topIssues = issueCounts.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .limit(TOP_ISSUES)
+            .map(Map.Entry::getKey)
+            .toList();
+
+        report.setEventCounts(eventCounts);
+        report.setRiskTimeline(timeline);
+        report.setTopIssues(topIssues);
+        report.setEvidence(evidence);
+        report.setNeedsReview(Boolean.TRUE.equals(summary.get("needsReview")) || events.size() >= REVIEW_EVENT_THRESHOLD);
+        return report;
+    }
+}
@@ -0,0 +1,11 @@
+package com.visilpro.service;
+
+/**
+ * Published by {@link ExamSessionService} after an exam session's status changes.
+ */
+public record SessionStatusChangedEvent(Long sessionId, String previousStatus, String status) {
+
+    public boolean isFinished() {
+        return ExamSessionService.isFinished(status);
+    }
+}
@@ -0,0 +1,222 @@
+package com.visilpro.service.audio;
+
+/**
+ * In-process acoustic event detection over 16 kHz PCM:
+ * <ul>
+ *   <li>phone rings: sustained tonal blocks picked up by a Goertzel bank tuned to
+ *   ringback and common ringer frequencies,</li>
+ *   <li>keyboard bursts: density of short, sharply decaying onsets,</li>
+ *   <li>overlapping voices: a second harmonic series left over after the
+ *   dominant pitch and its harmonics are removed from the spectrum.</li>
+ * </ul>
+ * Twiddle, window and filter tables are shared; each instance owns its scratch
+ * buffers and is therefore not thread-safe. Use one instance per worker thread.
+ */
+public class AcousticEventDetector {
+
+    // --- Ring detection (20 ms Goertzel blocks) ---
+    private static final int RING_BLOCK = Pcm16.SAMPLE_RATE / 50;
+    private static final float[] RING_FREQUENCIES = {
+        400f, 425f, 440f, 450f, 480f, 520f, 600f, 800f,
+        1000f, 1200f, 1400f, 1600f, 2000f, 2400f, 2800f, 3200f
+    };
+    private static final GoertzelBank RING_BANK = new GoertzelBank(RING_FREQUENCIES, Pcm16.SAMPLE_RATE, RING_BLOCK);
+    private static final float MIN_TONALITY = 0.5f;
+    private static final long MIN_TONE_ENERGY = 300L * 300L;
+    private static final int MIN_RING_RUN_BLOCKS = 10;
+    private static final int MIN_RING_BLOCKS = 25;
+
+    // --- Keystroke detection (5 ms sub-frames) ---
+    private static final int CLICK_FRAME = Pcm16.SAMPLE_RATE / 200;
+    private static final float CLICK_RISE = 10f;
+    private static final float MIN_CLICK_ENERGY = 400f * 400f;
+    private static final int CLICK_DECAY_FRAMES = 6;
+    private static final int CLICK_REFRACTORY_FRAMES = 8;
+    private static final int MIN_KEYSTROKES = 6;
+    private static final float MIN_KEYSTROKES_PER_SECOND = 2.5f;
+
+    // --- Overlapping voice detection (64 ms spectra) ---
+    private static final Fft FFT = new Fft(1024);
+    private static final float BIN_HZ = (float) Pcm16.SAMPLE_RATE / FFT.size();
+    private static final float MIN_F0 = 85f;
+    private static final float MAX_F0 = 330f;
+    private static final float F0_STEP = 2.5f;
+    private static final int HARMONICS = 6;
+    private static final long MIN_VOICED_ENERGY = 250L * 250L;
+    private static final float MIN_HARMONICITY = 4f;
+    private static final float SECOND_VOICE_RATIO = 0.45f;
+    private static final int MIN_OVERLAP_FRAMES = 4;
+    private static final float MIN_OVERLAP_FRACTION = 0.2f;
+
+    private final float[] tonePower = new float[RING_BANK.size()];
+    private final float[] re = new float[FFT.size()];
+    private final float[] im = new float[FFT.size()];
+    private final float[] power = new float[FFT.size() / 2 + 1];
+    private final float[] magnitude = new float[FFT.size() / 2 + 1];
+    private float[] clickEnergy = new float[Pcm16.SAMPLE_RATE * 3 / CLICK_FRAME];
+
+    public boolean detectPhoneRinging(short[] pcm, int offset, int length) {
+        int tonalBlocks = 0;
+        int run = 0;
+        int longestRun = 0;
+        int previousTone = -1;
+
+        int end = offset + length - RING_BLOCK;
+        int blocksLeft = length / RING_BLOCK;
+        for (int block = offset; block <= end; block += RING_BLOCK, blocksLeft--) {
+            // Speech rarely looks tonal; stop once the window can no longer reach the ring count
+            if (tonalBlocks + blocksLeft < MIN_RING_BLOCKS) {
+                return false;
+            }
+            long energy = 0;
+            for (int i = block; i < block + RING_BLOCK; i++) {
+                energy += (long) pcm[i] * pcm[i];
+            }
+            int tone = -1;
+            if (energy / RING_BLOCK >= MIN_TONE_ENERGY) {
+                RING_BANK.evaluate(pcm, block, tonePower);
+                float best = 0f;
+                for (int f = 0; f < tonePower.length; f++) {
+                    if (tonePower[f] > best) {
+                        best = tonePower[f];
+                        tone = f;
+                    }
+                }
+                // A pure tone at a filter frequency puts all of the block energy in that filter
+                float tonality = 2f * best / ((float) RING_BLOCK * energy);
+                if (tonality < MIN_TONALITY) {
+                    tone = -1;
+                }
+            }
+
+            if (tone >= 0) {
+                tonalBlocks++;
+                run = Math.abs(tone - previousTone) <= 1 ? run + 1 : 1;
+                longestRun = Math.max(longestRun, run);
+            } else {
+                run = 0;
+            }
+            previousTone = tone;
+        }
+        return longestRun >= MIN_RING_RUN_BLOCKS && tonalBlocks >= MIN_RING_BLOCKS;
+    }
+
+    public boolean detectKeyboardSounds(short[] pcm, int offset, int length) {
+        int frames = length / CLICK_FRAME;
+        if (clickEnergy.length < frames) {
+            clickEnergy = new float[frames];
+        }
+        for (int f = 0, p = offset; f < frames; f++, p += CLICK_FRAME) {
+            long energy = 0;
+            for (int i = p; i < p + CLICK_FRAME; i++) {
+                energy += (long) pcm[i] * pcm[i];
+            }
+            clickEnergy[f] = (float) energy / CLICK_FRAME;
+        }
+
+        int keystrokes = 0;
+        int lastOnset = -CLICK_REFRACTORY_FRAMES;
+        float background = frames > 0 ? clickEnergy[0] : 0f;
+        for (int f = 1; f < frames; f++) {
+            float e = clickEnergy[f];
+            boolean onset = e >= MIN_CLICK_ENERGY
+                    && e >= CLICK_RISE * (background + 1f)
+                    && f - lastOnset >= CLICK_REFRACTORY_FRAMES
+                    && decaysQuickly(f, frames);
+            if (onset) {
+                keystrokes++;
+                lastOnset = f;
+            } else {
+                background += (e - background) * 0.125f;
+            }
+        }
+
+        float seconds = (float) length / Pcm16.SAMPLE_RATE;
+        return keystrokes >= MIN_KEYSTROKES && keystrokes >= MIN_KEYSTROKES_PER_SECOND * seconds;
+    }
+
+    private boolean decaysQuickly(int onset, int frames) {
+        float peak = clickEnergy[onset];
+        int limit = Math.min(frames, onset + CLICK_DECAY_FRAMES + 1);
+        for (int f = onset + 1; f < limit; f++) {
+            peak = Math.max(peak, clickEnergy[f]);
+            if (clickEnergy[f] < peak * 0.25f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean detectMultipleVoices(short[] pcm, int offset, int length) {
+        int size = FFT.size();
+        int voicedFrames = 0;
+        int overlapFrames = 0;
+
+        for (int frame = offset; frame + size <= offset + length; frame += size) {
+            long energy = 0;
+            for (int i = frame; i < frame + size; i++) {
+                energy += (long) pcm[i] * pcm[i];
+            }
+            if (energy / size < MIN_VOICED_ENERGY) {
+                continue;
+            }
+
+            FFT.powerSpectrum(pcm, frame, re, im, power);
+            int lo = (int) (MIN_F0 / BIN_HZ);
+            int hi = Math.min(magnitude.length - 1, (int) (MAX_F0 * HARMONICS / BIN_HZ) + 1);
+            float mean = 0f;
+            for (int k = 0; k < magnitude.length; k++) {
+                magnitude[k] = (float) Math.sqrt(power[k]);
+                if (k >= lo && k <= hi) {
+                    mean += magnitude[k];
+                }
+            }
+            mean /= (hi - lo + 1);
+
+            float f0 = bestPitch();
+            float primary = harmonicScore(f0);
+            if (primary < MIN_HARMONICITY * mean) {
+                continue;
+            }
+            voicedFrames++;
+
+            // Remove the dominant speaker's harmonics and look for a second series
+            for (int h = 1; h <= HARMONICS; h++) {
+                int bin = Math.round(h * f0 / BIN_HZ);
+                for (int k = Math.max(0, bin - 1); k <= Math.min(magnitude.length - 1, bin + 1); k++) {
+                    magnitude[k] = 0f;
+                }
+            }
+            float secondary = harmonicScore(bestPitch());
+            if (secondary >= SECOND_VOICE_RATIO * primary && secondary >= MIN_HARMONICITY * mean) {
+                overlapFrames++;
+            }
+        }
+        return overlapFrames >= MIN_OVERLAP_FRAMES && overlapFrames >= MIN_OVERLAP_FRACTION * voicedFrames;
+    }
+
+    private float bestPitch() {
+        float bestF0 = MIN_F0;
+        float bestScore = -1f;
+        for (float f0 = MIN_F0; f0 <= MAX_F0; f0 += F0_STEP) {
+            float score = harmonicScore(f0);
+            if (score > bestScore) {
+                bestScore = score;
+                bestF0 = f0;
+            }
+        }
+        return bestF0;
+    }
+
+    private float harmonicScore(float f0) {
+        float sum = 0f;
+        for (int h = 1; h <= HARMONICS; h++) {
+            int bin = Math.round(h * f0 / BIN_HZ);
+            if (bin >= magnitude.length) {
+                break;
+            }
+            sum += magnitude[bin];
+        }
+        return sum / HARMONICS;
+    }
+}
@@ -0,0 +1,100 @@
+package com.visilpro.service.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-capacity ring of 16-bit samples for sliding-window analysis.
+ *
+ * Every sample is stored twice, at {@code i} and {@code i + capacity}, so the
+ * most recent window is always one contiguous slice of {@link #array()} and
+ * detectors can read it in place without first copying it out of the ring.
+ */
+public final class AudioRingBuffer {
+
+    private final short[] samples;
+    private final int capacity;
+    private int writePos;
+    private long totalWritten;
+
+    public AudioRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.samples = new short[capacity * 2];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Append little-endian PCM from {@code payload}. Any odd trailing byte is ignored.
+     */
+    public void write(ByteBuffer payload) {
+        ByteBuffer pcm = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (pcm.remaining() >= 2) {
+            short sample = pcm.getShort();
+            samples[writePos] = sample;
+            samples[writePos + capacity] = sample;
+            if (++writePos == capacity) {
+                writePos = 0;
+            }
+            totalWritten++;
+        }
+    }
+
+    /**
+     * Append G.711 mu-law samples from {@code payload}, one byte each.
+     */
+    public void writeMuLaw(ByteBuffer payload) {
+        ByteBuffer codes = payload.duplicate();
+        while (codes.hasRemaining()) {
+            short sample = MuLaw.decode(codes.get());
+            samples[writePos] = sample;
+            samples[writePos + capacity] = sample;
+            if (++writePos == capacity) {
+                writePos = 0;
+            }
+            totalWritten++;
+        }
+    }
+
+    /**
+     * Append samples from an array, e.g. bytes read from a capture line.
+     */
+    public void write(byte[] data, int offset, int length) {
+        write(ByteBuffer.wrap(data, offset, length));
+    }
+
+    /**
+     * Samples written since the buffer was created or last reset.
+     */
+    public long totalWritten() {
+        return totalWritten;
+    }
+
+    public int available() {
+        return (int) Math.min(totalWritten, capacity);
+    }
+
+    /**
+     * Backing array; read windows from it using {@link #windowStart(int)}.
+     */
+    public short[] array() {
+        return samples;
+    }
+
+    /**
+     * Index in {@link #array()} of the most recent {@code length} samples, read contiguously.
+     */
+    public int windowStart(int length) {
+        if (length > available()) {
+            throw new IllegalArgumentException("Window of " + length + " exceeds " + available() + " buffered samples");
+        }
+        return writePos + capacity - length;
+    }
+
+    public void reset() {
+        writePos = 0;
+        totalWritten = 0;
+    }
+}
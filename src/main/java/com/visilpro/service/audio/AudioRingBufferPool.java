@@ -0,0 +1,31 @@
+package com.visilpro.service.audio;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of equally sized ring buffers so stream sessions that come and
+ * go during an exam reuse sample storage instead of reallocating it.
+ */
+public final class AudioRingBufferPool {
+
+    private final int bufferCapacity;
+    private final BlockingQueue<AudioRingBuffer> idle;
+
+    public AudioRingBufferPool(int bufferCapacity, int maxIdle) {
+        this.bufferCapacity = bufferCapacity;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    public AudioRingBuffer acquire() {
+        AudioRingBuffer buffer = idle.poll();
+        return buffer != null ? buffer : new AudioRingBuffer(bufferCapacity);
+    }
+
+    public void release(AudioRingBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferCapacity) {
+            buffer.reset();
+            idle.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.visilpro.service.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of equally sized direct buffers for handing audio to transcription
+ * without going through the heap or the filesystem. Requests larger than the
+ * pooled size get a one-off heap buffer that is simply dropped on release.
+ */
+public final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> idle;
+
+    public DirectBufferPool(int bufferSize, int maxIdle) {
+        this.bufferSize = bufferSize;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * A cleared little-endian buffer with at least {@code capacity} bytes.
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity > bufferSize) {
+            return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize) {
+            idle.offer(buffer);
+        }
+    }
+}
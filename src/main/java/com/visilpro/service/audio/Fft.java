@@ -0,0 +1,87 @@
+package com.visilpro.service.audio;
+
+/**
+ * Fixed-size radix-2 FFT with precomputed twiddle, bit-reversal and Hann
+ * window tables. Tables are shared per size; callers supply the scratch arrays.
+ */
+public final class Fft {
+
+    private final int size;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] bitReverse;
+    private final float[] window;
+
+    public Fft(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        this.cos = new float[size / 2];
+        this.sin = new float[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            cos[i] = (float) Math.cos(angle);
+            sin[i] = (float) Math.sin(angle);
+        }
+        int bits = Integer.numberOfTrailingZeros(size);
+        this.bitReverse = new int[size];
+        for (int i = 0; i < size; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        this.window = new float[size];
+        for (int i = 0; i < size; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (size - 1)));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hann-windowed power spectrum of {@code size} samples starting at {@code offset}.
+     * Writes {@code size / 2 + 1} bins into {@code power}.
+     */
+    public void powerSpectrum(short[] pcm, int offset, float[] re, float[] im, float[] power) {
+        windowedTransform(pcm, offset, re, im);
+        for (int k = 0; k <= size / 2; k++) {
+            power[k] = re[k] * re[k] + im[k] * im[k];
+        }
+    }
+
+    /**
+     * Hann-windowed complex spectrum of {@code size} samples starting at {@code offset}.
+     */
+    public void windowedTransform(short[] pcm, int offset, float[] re, float[] im) {
+        for (int i = 0; i < size; i++) {
+            int j = bitReverse[i];
+            re[j] = pcm[offset + i] * window[i];
+            im[j] = 0f;
+        }
+        transform(re, im);
+    }
+
+    /**
+     * In-place transform of input that is already in bit-reversed order.
+     */
+    private void transform(float[] re, float[] im) {
+        for (int half = 1; half < size; half <<= 1) {
+            int step = size / (half << 1);
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k;
+                    int b = a + half;
+                    float wr = cos[t];
+                    float wi = sin[t];
+                    float xr = re[b] * wr - im[b] * wi;
+                    float xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.visilpro.service.audio;
+
+/**
+ * Inner-loop float kernels used by feature extraction. {@link #best()} returns
+ * the SIMD implementation when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise.
+ */
+public interface FloatKernels {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * {@code out[i] = re[i] * re[i] + im[i] * im[i]} for {@code i < length}.
+     */
+    void magnitudeSquared(float[] re, float[] im, float[] out, int length);
+
+    static FloatKernels best() {
+        return KernelSelector.BEST;
+    }
+
+    static FloatKernels scalar() {
+        return ScalarFloatKernels.INSTANCE;
+    }
+}
@@ -0,0 +1,82 @@
+package com.visilpro.service.audio;
+
+/**
+ * Bank of Goertzel filters evaluated over fixed-length blocks. Coefficients
+ * are computed once; evaluation is a single pass over the block per tone.
+ */
+public final class GoertzelBank {
+
+    private final float[] frequencies;
+    private final float[] coefficients;
+    private final int blockSize;
+
+    public GoertzelBank(float[] frequencies, int sampleRate, int blockSize) {
+        this.frequencies = frequencies.clone();
+        this.blockSize = blockSize;
+        this.coefficients = new float[frequencies.length];
+        for (int i = 0; i < frequencies.length; i++) {
+            coefficients[i] = (float) (2 * Math.cos(2 * Math.PI * frequencies[i] / sampleRate));
+        }
+    }
+
+    public int size() {
+        return frequencies.length;
+    }
+
+    public float frequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Writes the tone power of each filter for the block at {@code offset} into {@code power}.
+     * Each filter's recurrence depends on its previous step, so filters run four at a time:
+     * the independent chains overlap in the pipeline instead of waiting on each other.
+     */
+    public void evaluate(short[] pcm, int offset, float[] power) {
+        int f = 0;
+        for (; f + 4 <= coefficients.length; f += 4) {
+            float c0 = coefficients[f];
+            float c1 = coefficients[f + 1];
+            float c2 = coefficients[f + 2];
+            float c3 = coefficients[f + 3];
+            float a1 = 0f;
+            float a2 = 0f;
+            float b1 = 0f;
+            float b2 = 0f;
+            float d1 = 0f;
+            float d2 = 0f;
+            float e1 = 0f;
+            float e2 = 0f;
+            for (int i = offset; i < offset + blockSize; i++) {
+                float x = pcm[i];
+                float a0 = x + c0 * a1 - a2;
+                float b0 = x + c1 * b1 - b2;
+                float d0 = x + c2 * d1 - d2;
+                float e0 = x + c3 * e1 - e2;
+                a2 = a1;
+                a1 = a0;
+                b2 = b1;
+                b1 = b0;
+                d2 = d1;
+                d1 = d0;
+                e2 = e1;
+                e1 = e0;
+            }
+            power[f] = a1 * a1 + a2 * a2 - c0 * a1 * a2;
+            power[f + 1] = b1 * b1 + b2 * b2 - c1 * b1 * b2;
+            power[f + 2] = d1 * d1 + d2 * d2 - c2 * d1 * d2;
+            power[f + 3] = e1 * e1 + e2 * e2 - c3 * e1 * e2;
+        }
+        for (; f < coefficients.length; f++) {
+            float coeff = coefficients[f];
+            float s1 = 0f;
+            float s2 = 0f;
+            for (int i = offset; i < offset + blockSize; i++) {
+                float s0 = pcm[i] + coeff * s1 - s2;
+                s2 = s1;
+                s1 = s0;
+            }
+            power[f] = s1 * s1 + s2 * s2 - coeff * s1 * s2;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.visilpro.service.audio;
+
+/**
+ * Picks the kernel implementation once, on first use.
+ */
+final class KernelSelector {
+
+    static final FloatKernels BEST = load();
+
+    private KernelSelector() {
+    }
+
+    private static FloatKernels load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (FloatKernels) Class.forName("com.visilpro.service.audio.SimdFloatKernels")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar kernels
+            }
+        }
+        return ScalarFloatKernels.INSTANCE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.visilpro.service.audio;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Deterministic stand-in used until a real speech-to-text service is configured
+ * ({@code audio.transcriber=stub}, the default). Anything longer than a short
+ * blip yields a fixed transcript, so tests and load runs behave repeatably.
+ */
+@Component
+@ConditionalOnProperty(name = "audio.transcriber", havingValue = "stub", matchIfMissing = true)
+public class LocalStubTranscriber implements Transcriber {
+
+    private static final int MIN_TRANSCRIBED_BYTES = 5000;
+
+    @Override
+    public String transcribe(ByteBuffer pcm) {
+        if (pcm.remaining() > MIN_TRANSCRIBED_BYTES) {
+            return "Sample transcribed text from audio";
+        }
+        return "";
+    }
+}
@@ -0,0 +1,127 @@
+package com.visilpro.service.audio;
+
+import java.util.Arrays;
+
+/**
+ * Speaker embeddings from 16 kHz PCM: 13 MFCCs per 32 ms frame (16 ms hop),
+ * summarised over the voiced frames of a window as the mean and standard
+ * deviation of coefficients 1-12. Mel filter weights and the DCT matrix are
+ * precomputed; the filterbank and DCT run through {@link FloatKernels}.
+ *
+ * Instances own scratch buffers and are not thread-safe.
+ */
+public class MfccExtractor {
+
+    public static final int COEFFICIENTS = 13;
+    public static final int EMBEDDING_SIZE = 2 * (COEFFICIENTS - 1);
+
+    private static final Fft FFT = new Fft(512);
+    private static final int HOP = FFT.size() / 2;
+    private static final int BINS = FFT.size() / 2 + 1;
+    private static final int MEL_FILTERS = 26;
+    private static final float MIN_HZ = 80f;
+    private static final float MAX_HZ = 7600f;
+    private static final long MIN_VOICED_ENERGY = 250L * 250L;
+
+    // Triangular filter m covers bins [FILTER_START[m], FILTER_START[m] + FILTER_LENGTH[m])
+    private static final int[] FILTER_START = new int[MEL_FILTERS];
+    private static final int[] FILTER_LENGTH = new int[MEL_FILTERS];
+    private static final float[] FILTER_WEIGHTS = new float[MEL_FILTERS * BINS];
+    private static final float[] DCT = new float[COEFFICIENTS * MEL_FILTERS];
+
+    static {
+        double melMin = hzToMel(MIN_HZ);
+        double melMax = hzToMel(MAX_HZ);
+        double[] edges = new double[MEL_FILTERS + 2];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = melToHz(melMin + (melMax - melMin) * i / (MEL_FILTERS + 1)) * FFT.size() / Pcm16.SAMPLE_RATE;
+        }
+        for (int m = 0; m < MEL_FILTERS; m++) {
+            double left = edges[m];
+            double centre = edges[m + 1];
+            double right = edges[m + 2];
+            int start = (int) Math.ceil(left);
+            int end = Math.min(BINS - 1, (int) Math.floor(right));
+            FILTER_START[m] = start;
+            FILTER_LENGTH[m] = Math.max(0, end - start + 1);
+            for (int k = start; k <= end; k++) {
+                double weight = k <= centre ? (k - left) / (centre - left) : (right - k) / (right - centre);
+                FILTER_WEIGHTS[m * BINS + k] = (float) Math.max(0, weight);
+            }
+        }
+        for (int c = 0; c < COEFFICIENTS; c++) {
+            for (int m = 0; m < MEL_FILTERS; m++) {
+                DCT[c * MEL_FILTERS + m] = (float) Math.cos(Math.PI * c * (m + 0.5) / MEL_FILTERS);
+            }
+        }
+    }
+
+    private final FloatKernels kernels;
+    private final float[] re = new float[FFT.size()];
+    private final float[] im = new float[FFT.size()];
+    private final float[] power = new float[BINS];
+    private final float[] logMel = new float[MEL_FILTERS];
+    private final float[] sum = new float[COEFFICIENTS];
+    private final float[] sumSquares = new float[COEFFICIENTS];
+
+    public MfccExtractor() {
+        this(FloatKernels.best());
+    }
+
+    public MfccExtractor(FloatKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    /**
+     * Writes the speaker embedding of the window into {@code embedding}
+     * (length {@link #EMBEDDING_SIZE}).
+     *
+     * @return number of voiced frames summarised; 0 leaves {@code embedding} untouched
+     */
+    public int embed(short[] pcm, int offset, int length, float[] embedding) {
+        Arrays.fill(sum, 0f);
+        Arrays.fill(sumSquares, 0f);
+        int frames = 0;
+
+        for (int frame = offset; frame + FFT.size() <= offset + length; frame += HOP) {
+            long energy = 0;
+            for (int i = frame; i < frame + FFT.size(); i++) {
+                energy += (long) pcm[i] * pcm[i];
+            }
+            if (energy / FFT.size() < MIN_VOICED_ENERGY) {
+                continue;
+            }
+
+            FFT.windowedTransform(pcm, frame, re, im);
+            kernels.magnitudeSquared(re, im, power, BINS);
+            for (int m = 0; m < MEL_FILTERS; m++) {
+                float melEnergy = kernels.dot(FILTER_WEIGHTS, m * BINS + FILTER_START[m], power, FILTER_START[m], FILTER_LENGTH[m]);
+                logMel[m] = (float) Math.log(melEnergy + 1e-3f);
+            }
+            for (int c = 1; c < COEFFICIENTS; c++) {
+                float coefficient = kernels.dot(DCT, c * MEL_FILTERS, logMel, 0, MEL_FILTERS);
+                sum[c] += coefficient;
+                sumSquares[c] += coefficient * coefficient;
+            }
+            frames++;
+        }
+
+        if (frames > 0) {
+            for (int c = 1; c < COEFFICIENTS; c++) {
+                float mean = sum[c] / frames;
+                float variance = Math.max(0f, sumSquares[c] / frames - mean * mean);
+                embedding[c - 1] = mean;
+                embedding[COEFFICIENTS - 1 + c - 1] = (float) Math.sqrt(variance);
+            }
+        }
+        return frames;
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700);
+    }
+
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+}
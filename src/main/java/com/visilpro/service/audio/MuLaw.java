@@ -0,0 +1,46 @@
+package com.visilpro.service.audio;
+
+/**
+ * G.711 mu-law companding: one byte per sample instead of two, which halves
+ * the exam page's audio stream. Speech keeps roughly 14-bit dynamic range,
+ * enough for the local detectors; decoding is a table lookup.
+ */
+public final class MuLaw {
+
+    private static final int BIAS = 0x84;
+    private static final int CLIP = 32635;
+
+    private static final short[] DECODE = new short[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int code = ~i & 0xFF;
+            int exponent = (code >> 4) & 0x07;
+            int magnitude = ((((code & 0x0F) << 3) + BIAS) << exponent) - BIAS;
+            DECODE[i] = (short) ((code & 0x80) != 0 ? -magnitude : magnitude);
+        }
+    }
+
+    private MuLaw() {
+    }
+
+    public static short decode(byte code) {
+        return DECODE[code & 0xFF];
+    }
+
+    public static byte encode(short sample) {
+        int magnitude = sample;
+        int sign = 0;
+        if (magnitude < 0) {
+            sign = 0x80;
+            magnitude = -magnitude;
+        }
+        magnitude = Math.min(magnitude, CLIP) + BIAS;
+        int exponent = 7;
+        for (int mask = 0x4000; (magnitude & mask) == 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        int mantissa = (magnitude >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+}
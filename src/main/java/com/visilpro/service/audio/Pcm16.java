@@ -0,0 +1,116 @@
+package com.visilpro.service.audio;
+
+/**
+ * Helpers for 16-bit little-endian mono PCM, the format the proctoring
+ * client streams at 16 kHz.
+ */
+public final class Pcm16 {
+
+    public static final int SAMPLE_RATE = 16000;
+
+    private Pcm16() {
+    }
+
+    /**
+     * Locate the sample data of a 16-bit mono 16 kHz WAV file.
+     *
+     * @return offset of the first sample, or -1 if the bytes are not such a WAV file
+     */
+    public static int wavDataOffset(byte[] data) {
+        if (data == null || data.length < 44 || !tagAt(data, 0, "RIFF") || !tagAt(data, 8, "WAVE")) {
+            return -1;
+        }
+        boolean supportedFormat = false;
+        int pos = 12;
+        while (pos + 8 <= data.length) {
+            int chunkSize = readInt(data, pos + 4);
+            int body = pos + 8;
+            if (tagAt(data, pos, "fmt ") && body + 16 <= data.length) {
+                int audioFormat = readShort(data, body);
+                int channels = readShort(data, body + 2);
+                int sampleRate = readInt(data, body + 4);
+                int bitsPerSample = readShort(data, body + 14);
+                supportedFormat = audioFormat == 1 && channels == 1
+                        && sampleRate == SAMPLE_RATE && bitsPerSample == 16;
+            } else if (tagAt(data, pos, "data")) {
+                return supportedFormat ? body : -1;
+            }
+            if (chunkSize < 0) {
+                return -1;
+            }
+            pos = body + chunkSize + (chunkSize & 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decode little-endian samples into {@code dst} without allocating.
+     *
+     * @return number of samples written
+     */
+    public static int decode(byte[] src, int offset, int length, short[] dst) {
+        int samples = Math.min(length / 2, dst.length);
+        for (int i = 0, p = offset; i < samples; i++, p += 2) {
+            dst[i] = (short) ((src[p] & 0xFF) | (src[p + 1] << 8));
+        }
+        return samples;
+    }
+
+    /**
+     * Wrap samples in a 16-bit mono 16 kHz WAV file, e.g. to hand a stream window to the model.
+     */
+    public static byte[] wav(short[] pcm, int offset, int length) {
+        byte[] wav = new byte[44 + length * 2];
+        putTag(wav, 0, "RIFF");
+        putInt(wav, 4, 36 + length * 2);
+        putTag(wav, 8, "WAVE");
+        putTag(wav, 12, "fmt ");
+        putInt(wav, 16, 16);
+        putShort(wav, 20, 1);
+        putShort(wav, 22, 1);
+        putInt(wav, 24, SAMPLE_RATE);
+        putInt(wav, 28, SAMPLE_RATE * 2);
+        putShort(wav, 32, 2);
+        putShort(wav, 34, 16);
+        putTag(wav, 36, "data");
+        putInt(wav, 40, length * 2);
+        for (int i = 0, p = 44; i < length; i++, p += 2) {
+            putShort(wav, p, pcm[offset + i]);
+        }
+        return wav;
+    }
+
+    private static void putTag(byte[] data, int pos, String tag) {
+        for (int i = 0; i < 4; i++) {
+            data[pos + i] = (byte) tag.charAt(i);
+        }
+    }
+
+    private static void putShort(byte[] data, int pos, int value) {
+        data[pos] = (byte) value;
+        data[pos + 1] = (byte) (value >> 8);
+    }
+
+    private static void putInt(byte[] data, int pos, int value) {
+        putShort(data, pos, value);
+        putShort(data, pos + 2, value >> 16);
+    }
+
+    private static boolean tagAt(byte[] data, int pos, String tag) {
+        for (int i = 0; i < 4; i++) {
+            if (data[pos + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8);
+    }
+
+    private static int readInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8)
+                | ((data[pos + 2] & 0xFF) << 16) | ((data[pos + 3] & 0xFF) << 24);
+    }
+}
@@ -0,0 +1,22 @@
+package com.visilpro.service.audio;
+
+final class ScalarFloatKernels implements FloatKernels {
+
+    static final ScalarFloatKernels INSTANCE = new ScalarFloatKernels();
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void magnitudeSquared(float[] re, float[] im, float[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            out[i] = re[i] * re[i] + im[i] * im[i];
+        }
+    }
+}
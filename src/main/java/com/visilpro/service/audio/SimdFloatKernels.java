@@ -0,0 +1,45 @@
+package com.visilpro.service.audio;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link FloatKernels} on the incubating Vector API. Only loaded reflectively by
+ * {@link FloatKernels#best()} once the module is known to be present.
+ */
+final class SimdFloatKernels implements FloatKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void magnitudeSquared(float[] re, float[] im, float[] out, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector vr = FloatVector.fromArray(SPECIES, re, i);
+            FloatVector vi = FloatVector.fromArray(SPECIES, im, i);
+            vr.mul(vr).add(vi.mul(vi)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = re[i] * re[i] + im[i] * im[i];
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.visilpro.service.audio;
+
+/**
+ * Online clustering of speaker embeddings across one exam session. Each
+ * embedding joins the closest centroid (cosine distance) or opens a new
+ * cluster; a speaker only counts once it has been heard in several windows,
+ * so a single noisy window does not register as a new voice. Memory is fixed
+ * at {@link #MAX_SPEAKERS} centroids.
+ */
+public class SpeakerTracker {
+
+    public static final int MAX_SPEAKERS = 6;
+
+    private static final float NEW_SPEAKER_DISTANCE = 0.25f;
+    private static final int MIN_WINDOWS_PER_SPEAKER = 3;
+
+    private final FloatKernels kernels;
+    private final float[][] centroids = new float[MAX_SPEAKERS][MfccExtractor.EMBEDDING_SIZE];
+    private final float[] norms = new float[MAX_SPEAKERS];
+    private final int[] windows = new int[MAX_SPEAKERS];
+    private int clusters;
+    private int lastSpeaker = -1;
+    private int speakerChanges;
+
+    public SpeakerTracker() {
+        this(FloatKernels.best());
+    }
+
+    public SpeakerTracker(FloatKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    /**
+     * Assign an embedding to a speaker.
+     *
+     * @return the speaker index
+     */
+    public synchronized int observe(float[] embedding) {
+        float norm = (float) Math.sqrt(kernels.dot(embedding, 0, embedding, 0, embedding.length));
+        int nearest = -1;
+        float nearestDistance = Float.MAX_VALUE;
+        for (int s = 0; s < clusters; s++) {
+            float similarity = kernels.dot(centroids[s], 0, embedding, 0, embedding.length) / (norms[s] * norm + 1e-6f);
+            float distance = 1f - similarity;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = s;
+            }
+        }
+
+        int speaker;
+        if (nearest >= 0 && (nearestDistance < NEW_SPEAKER_DISTANCE || clusters == MAX_SPEAKERS)) {
+            speaker = nearest;
+            float[] centroid = centroids[speaker];
+            int n = ++windows[speaker];
+            for (int i = 0; i < centroid.length; i++) {
+                centroid[i] += (embedding[i] - centroid[i]) / n;
+            }
+            norms[speaker] = (float) Math.sqrt(kernels.dot(centroid, 0, centroid, 0, centroid.length));
+        } else {
+            speaker = clusters++;
+            System.arraycopy(embedding, 0, centroids[speaker], 0, embedding.length);
+            norms[speaker] = norm;
+            windows[speaker] = 1;
+        }
+
+        if (lastSpeaker >= 0 && speaker != lastSpeaker) {
+            speakerChanges++;
+        }
+        lastSpeaker = speaker;
+        return speaker;
+    }
+
+    /**
+     * Assign an embedding to a speaker and report whether this window confirmed an
+     * additional speaker: one heard in enough windows for the first time while
+     * another is already trusted. Each extra voice is reported once, not on every
+     * window it speaks in afterwards.
+     */
+    public synchronized boolean observeConfirmsNewSpeaker(float[] embedding) {
+        int speaker = observe(embedding);
+        return windows[speaker] == MIN_WINDOWS_PER_SPEAKER && speakerCount() > 1;
+    }
+
+    /**
+     * Speakers heard in enough windows to be trusted.
+     */
+    public synchronized int speakerCount() {
+        int count = 0;
+        for (int s = 0; s < clusters; s++) {
+            if (windows[s] >= MIN_WINDOWS_PER_SPEAKER) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int speakerChanges() {
+        return speakerChanges;
+    }
+}
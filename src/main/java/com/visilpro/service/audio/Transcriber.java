@@ -0,0 +1,16 @@
+package com.visilpro.service.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Speech-to-text backend for the audio pipeline. Audio is handed over in memory
+ * as 16 kHz mono 16-bit little-endian PCM between the buffer's position and limit.
+ * Implementations must not retain the buffer after returning; it goes back to a pool.
+ */
+public interface Transcriber {
+
+    /**
+     * @return the transcript, or an empty string when nothing intelligible was heard
+     */
+    String transcribe(ByteBuffer pcm);
+}
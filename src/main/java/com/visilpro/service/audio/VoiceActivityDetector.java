@@ -0,0 +1,80 @@
+package com.visilpro.service.audio;
+
+/**
+ * Energy and zero-crossing based voice activity detector for 16 kHz PCM.
+ *
+ * Frames are 20 ms. A frame counts as voiced when its energy clears both an
+ * absolute floor and the running noise estimate, and its zero-crossing rate
+ * sits in the range typical for speech (hiss and clicks cross far more often).
+ * Onset needs a few consecutive voiced frames; once active, a hangover keeps
+ * the detector open across short pauses between words. The detector works on
+ * caller-owned buffers and allocates nothing while scanning.
+ */
+public class VoiceActivityDetector {
+
+    public static final int FRAME_SIZE = Pcm16.SAMPLE_RATE / 50;
+
+    // Mean-square energy thresholds (roughly -45 dBFS and -30 dBFS RMS)
+    private static final long MIN_ENERGY = 180L * 180L;
+    private static final long STRONG_ENERGY = 1000L * 1000L;
+    private static final int NOISE_RATIO = 4;
+
+    private static final int MIN_ZERO_CROSSINGS = FRAME_SIZE / 50;
+    private static final int MAX_ZERO_CROSSINGS = FRAME_SIZE * 35 / 100;
+
+    private static final int ONSET_FRAMES = 3;
+    private static final int HANGOVER_FRAMES = 8;
+    private static final int MIN_SPEECH_FRAMES = 10;
+
+    /**
+     * Number of 20 ms frames considered speech after onset and hangover smoothing.
+     */
+    public int countSpeechFrames(short[] pcm, int offset, int length) {
+        long noiseFloor = Long.MAX_VALUE;
+        int consecutiveVoiced = 0;
+        int hangover = 0;
+        int speechFrames = 0;
+
+        int end = offset + length - FRAME_SIZE;
+        for (int frame = offset; frame <= end; frame += FRAME_SIZE) {
+            long energy = 0;
+            int zeroCrossings = 0;
+            int previous = pcm[frame];
+            for (int i = frame; i < frame + FRAME_SIZE; i++) {
+                int sample = pcm[i];
+                energy += (long) sample * sample;
+                if ((sample ^ previous) < 0) {
+                    zeroCrossings++;
+                }
+                previous = sample;
+            }
+            energy /= FRAME_SIZE;
+
+            // Noise floor follows quiet frames immediately and creeps up slowly
+            // (about 0.4% per frame) so sustained speech does not become "noise"
+            noiseFloor = energy < noiseFloor ? energy : noiseFloor + (noiseFloor >> 8) + 1;
+
+            boolean voiced = energy >= STRONG_ENERGY
+                    || (energy >= MIN_ENERGY
+                        && energy >= noiseFloor * NOISE_RATIO
+                        && zeroCrossings >= MIN_ZERO_CROSSINGS
+                        && zeroCrossings <= MAX_ZERO_CROSSINGS);
+
+            consecutiveVoiced = voiced ? consecutiveVoiced + 1 : 0;
+            if (consecutiveVoiced >= ONSET_FRAMES) {
+                hangover = HANGOVER_FRAMES;
+            }
+            if (hangover > 0) {
+                speechFrames++;
+                if (!voiced) {
+                    hangover--;
+                }
+            }
+        }
+        return speechFrames;
+    }
+
+    public boolean containsSpeech(short[] pcm, int offset, int length) {
+        return countSpeechFrames(pcm, offset, length) >= MIN_SPEECH_FRAMES;
+    }
+}
@@ -0,0 +1,167 @@
+package com.visilpro.service.join;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent windows of each session's live audio stream, stamped on the client's
+ * capture clock, so an uploaded frame can be joined with the audio heard when
+ * it was captured. Only windows with speech keep their audio; the others just
+ * move the stream's covered time forward.
+ *
+ * A lookup for a time the stream has already covered is answered at once with
+ * the speech window containing it whose midpoint is closest, or null. A lookup
+ * ahead of the stream waits until a window reaches that time, the timeout
+ * passes, or the stream ends. Sessions without an open stream are answered
+ * with null at once. Waiting lookups are completed outside the session's lock,
+ * on the thread that advanced or released the stream or on the timeout timer.
+ */
+public class StreamWindowIndex {
+
+    private record Window(long startMillis, long endMillis, byte[] audio) {
+        boolean covers(long timestamp) {
+            return startMillis <= timestamp && timestamp <= endMillis;
+        }
+    }
+
+    private record Waiter(long timestamp, CompletableFuture<byte[]> result) {
+    }
+
+    private static final class Stream {
+        final ArrayDeque<Window> speech = new ArrayDeque<>();
+        final List<Waiter> waiters = new ArrayList<>();
+        long coveredUntil = Long.MIN_VALUE;
+    }
+
+    private final int maxWindows;
+    private final int maxWaiting;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+
+    public StreamWindowIndex(int maxWindows, int maxWaiting) {
+        this.maxWindows = maxWindows;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * Start indexing a session's stream; lookups wait for it from now on.
+     */
+    public void open(String sessionId) {
+        streams.putIfAbsent(sessionId, new Stream());
+    }
+
+    /**
+     * Record the next window of a session's stream.
+     *
+     * @param audio the window as a WAV file if it contains speech, else null
+     */
+    public void advance(String sessionId, long startMillis, long endMillis, byte[] audio) {
+        Stream stream = streams.get(sessionId);
+        if (stream == null) {
+            return;
+        }
+        List<Runnable> answered = new ArrayList<>();
+        synchronized (stream) {
+            stream.coveredUntil = Math.max(stream.coveredUntil, endMillis);
+            if (audio != null) {
+                if (stream.speech.size() >= maxWindows) {
+                    stream.speech.pollFirst();
+                }
+                stream.speech.addLast(new Window(startMillis, endMillis, audio));
+            }
+            Iterator<Waiter> waiters = stream.waiters.iterator();
+            while (waiters.hasNext()) {
+                Waiter waiter = waiters.next();
+                if (waiter.result().isDone()) {
+                    waiters.remove();
+                } else if (waiter.timestamp() <= stream.coveredUntil) {
+                    waiters.remove();
+                    byte[] found = closest(stream, waiter.timestamp());
+                    answered.add(() -> waiter.result().complete(found));
+                }
+            }
+        }
+        answered.forEach(Runnable::run);
+    }
+
+    /**
+     * The speech window of a session's stream that contains {@code timestamp},
+     * as a WAV file, or null if the stream was silent then or never got there.
+     */
+    public CompletableFuture<byte[]> audioAt(String sessionId, long timestamp, long timeoutMillis) {
+        Stream stream = streams.get(sessionId);
+        if (stream == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Waiter evicted = null;
+        CompletableFuture<byte[]> result;
+        synchronized (stream) {
+            if (timestamp <= stream.coveredUntil) {
+                return CompletableFuture.completedFuture(closest(stream, timestamp));
+            }
+            stream.waiters.removeIf(waiter -> waiter.result().isDone());
+            if (stream.waiters.size() >= maxWaiting) {
+                evicted = stream.waiters.remove(0);
+            }
+            result = new CompletableFuture<byte[]>().completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS);
+            stream.waiters.add(new Waiter(timestamp, result));
+        }
+        if (evicted != null) {
+            evicted.result().complete(null);
+        }
+        return result;
+    }
+
+    /**
+     * Forget a session's stream, answering its waiting lookups with null.
+     */
+    public void release(String sessionId) {
+        Stream stream = streams.remove(sessionId);
+        if (stream == null) {
+            return;
+        }
+        List<Waiter> waiting;
+        synchronized (stream) {
+            waiting = new ArrayList<>(stream.waiters);
+            stream.waiters.clear();
+            stream.speech.clear();
+        }
+        waiting.forEach(waiter -> waiter.result().complete(null));
+    }
+
+    /**
+     * Lookups currently waiting for a stream to reach their time, across all sessions.
+     */
+    public int waiting() {
+        int waiting = 0;
+        for (Stream stream : streams.values()) {
+            synchronized (stream) {
+                for (Waiter waiter : stream.waiters) {
+                    if (!waiter.result().isDone()) {
+                        waiting++;
+                    }
+                }
+            }
+        }
+        return waiting;
+    }
+
+    // Windows overlap, so prefer the one the timestamp sits closest to the middle of
+    private static byte[] closest(Stream stream, long timestamp) {
+        Window best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (Window window : stream.speech) {
+            long distance = Math.abs((window.startMillis() + window.endMillis()) / 2 - timestamp);
+            if (window.covers(timestamp) && distance < bestDistance) {
+                best = window;
+                bestDistance = distance;
+            }
+        }
+        return best != null ? best.audio() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.visilpro.service.risk;
+
+import java.util.List;
+
+/**
+ * Two signals that mean more together than apart: when both are seen within
+ * {@code windowMillis} of each other, the weaker of the two is counted again
+ * with {@code bonus} as its weight.
+ */
+public record CorrelationRule(RiskSignal first, RiskSignal second, long windowMillis, double bonus, String description) {
+
+    public static final List<CorrelationRule> DEFAULT_RULES = List.of(
+        new CorrelationRule(RiskSignal.GAZE_AWAY, RiskSignal.SECOND_VOICE, 10_000, 1.0, "Looking away while another voice speaks"),
+        new CorrelationRule(RiskSignal.GAZE_AWAY, RiskSignal.SPEECH, 10_000, 0.8, "Looking away while talking"),
+        new CorrelationRule(RiskSignal.FACE_ABSENT, RiskSignal.SECOND_VOICE, 15_000, 1.0, "Out of frame while another voice speaks"),
+        new CorrelationRule(RiskSignal.MULTIPLE_PEOPLE, RiskSignal.SECOND_VOICE, 15_000, 1.0, "Second person seen and heard"),
+        new CorrelationRule(RiskSignal.FOCUS_LOST, RiskSignal.SPEECH, 15_000, 0.8, "Switched window while talking"),
+        new CorrelationRule(RiskSignal.DEVICE, RiskSignal.GAZE_AWAY, 10_000, 0.8, "Device in view while looking away")
+    );
+}
@@ -0,0 +1,15 @@
+package com.visilpro.service.risk;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The combined risk of a session at one point on its timeline.
+ *
+ * @param score   combined score, 0-100
+ * @param crossed true only for the observation that took the score over the alert threshold
+ * @param signals current decayed evidence per signal, for signals with any left
+ * @param rules   descriptions of the co-occurrence rules currently contributing
+ */
+public record RiskAssessment(int score, boolean crossed, Map<RiskSignal, Double> signals, List<String> rules) {
+}
@@ -0,0 +1,26 @@
+package com.visilpro.service.risk;
+
+/**
+ * What a verdict or behaviour event says about a session, independent of the
+ * channel it came from. The weight is the combined-score contribution of one
+ * unit of fully confident evidence.
+ */
+public enum RiskSignal {
+    MULTIPLE_PEOPLE(1.2),
+    DEVICE(1.2),
+    SECOND_VOICE(0.9),
+    FACE_ABSENT(0.6),
+    FOCUS_LOST(0.5),
+    GAZE_AWAY(0.4),
+    SPEECH(0.4);
+
+    private final double weight;
+
+    RiskSignal(double weight) {
+        this.weight = weight;
+    }
+
+    public double weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,121 @@
+package com.visilpro.service.risk;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming risk state of one session, in constant memory: per signal, the
+ * evidence accumulated so far and the time and strength of its last sighting.
+ *
+ * Evidence decays exponentially with the configured half-life, so a burst of
+ * sightings builds up and a quiet spell lets it fade; it is capped so one
+ * noisy channel cannot dominate forever. Co-occurrence rules only need the last
+ * sighting of each signal, which keeps the sliding windows free of event lists.
+ *
+ * The combined score is {@code 100 * (1 - e^-raw)}, where {@code raw} sums each
+ * signal's weighted evidence and every active rule's bonus. Crossing the alert
+ * threshold disarms the session until the score has fallen back below the
+ * re-arm level, so a sustained high score raises one alert, not one per frame.
+ * Observations may arrive out of order; an older one is decayed to the current
+ * time of the session rather than moving it back.
+ */
+public class SessionRisk {
+
+    private static final double MAX_EVIDENCE = 3;
+    private static final RiskSignal[] SIGNALS = RiskSignal.values();
+
+    private final double[] evidence = new double[SIGNALS.length];
+    private final long[] lastSeen = new long[SIGNALS.length];
+    private final double[] lastStrength = new double[SIGNALS.length];
+    private final List<CorrelationRule> rules;
+    private final double decayPerMilli;
+    private final int alertThreshold;
+    private final int rearmThreshold;
+    private long now = Long.MIN_VALUE;
+    private boolean armed = true;
+
+    public SessionRisk(List<CorrelationRule> rules, long halfLifeMillis, int alertThreshold, int rearmThreshold) {
+        this.rules = rules;
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        this.alertThreshold = alertThreshold;
+        this.rearmThreshold = rearmThreshold;
+    }
+
+    /**
+     * Add evidence for a signal seen at {@code timestamp} with {@code strength}
+     * between 0 and 1, and return the combined risk after it.
+     */
+    public synchronized RiskAssessment observe(RiskSignal signal, double strength, long timestamp) {
+        advance(timestamp);
+        int i = signal.ordinal();
+        double decayed = strength * decay(now - timestamp);
+        evidence[i] = Math.min(MAX_EVIDENCE, evidence[i] + decayed);
+        if (timestamp >= lastSeen[i]) {
+            lastSeen[i] = timestamp;
+            lastStrength[i] = strength;
+        }
+        return assess(true);
+    }
+
+    /**
+     * The combined risk at {@code timestamp}, without adding evidence.
+     */
+    public synchronized RiskAssessment current(long timestamp) {
+        advance(timestamp);
+        return assess(false);
+    }
+
+    private void advance(long timestamp) {
+        if (now == Long.MIN_VALUE) {
+            now = timestamp;
+        } else if (timestamp > now) {
+            double factor = decay(timestamp - now);
+            for (int i = 0; i < evidence.length; i++) {
+                evidence[i] *= factor;
+            }
+            now = timestamp;
+        }
+    }
+
+    private RiskAssessment assess(boolean mayAlert) {
+        double raw = 0;
+        Map<RiskSignal, Double> signals = new EnumMap<>(RiskSignal.class);
+        for (RiskSignal signal : SIGNALS) {
+            double value = evidence[signal.ordinal()];
+            if (value >= 0.01) {
+                raw += signal.weight() * value;
+                signals.put(signal, Math.round(value * 100) / 100.0);
+            }
+        }
+
+        List<String> active = new ArrayList<>();
+        for (CorrelationRule rule : rules) {
+            int a = rule.first().ordinal();
+            int b = rule.second().ordinal();
+            if (lastSeen[a] == 0 || lastSeen[b] == 0) {
+                continue;
+            }
+            long later = Math.max(lastSeen[a], lastSeen[b]);
+            if (Math.abs(lastSeen[a] - lastSeen[b]) <= rule.windowMillis() && now - later <= rule.windowMillis()) {
+                raw += rule.bonus() * Math.min(lastStrength[a], lastStrength[b]) * decay(now - later);
+                active.add(rule.description());
+            }
+        }
+
+        int score = (int) Math.round(100 * (1 - Math.exp(-raw)));
+        boolean crossed = false;
+        if (armed && mayAlert && score >= alertThreshold) {
+            crossed = true;
+            armed = false;
+        } else if (!armed && score < rearmThreshold) {
+            armed = true;
+        }
+        return new RiskAssessment(score, crossed, signals, active);
+    }
+
+    private double decay(long elapsedMillis) {
+        return elapsedMillis <= 0 ? 1 : Math.exp(-decayPerMilli * elapsedMillis);
+    }
+}
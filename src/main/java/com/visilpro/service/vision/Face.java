@@ -0,0 +1,23 @@
+package com.visilpro.service.vision;
+
+/**
+ * A face detection in analysis-frame pixels.
+ *
+ * @param score     summed feature responses, in units of the window's standard deviation
+ * @param neighbors raw windows merged into this detection; real faces fire at several nearby positions and scales
+ * @param yaw       rough head yaw from -1 (turned to the image left) to 1 (turned to the image right), 0 frontal
+ */
+public record Face(int x, int y, int size, double score, int neighbors, double yaw) {
+
+    boolean overlaps(int otherX, int otherY, int otherSize) {
+        int ix = Math.min(x + size, otherX + otherSize) - Math.max(x, otherX);
+        int iy = Math.min(y + size, otherY + otherSize) - Math.max(y, otherY);
+        if (ix <= 0 || iy <= 0) {
+            return false;
+        }
+        double intersection = (double) ix * iy;
+        double smaller = Math.min(size * size, otherSize * otherSize);
+        // Overlap relative to the smaller box, so a window nested in a larger one merges too
+        return intersection / smaller > 0.25;
+    }
+}
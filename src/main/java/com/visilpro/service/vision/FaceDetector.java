@@ -0,0 +1,198 @@
+package com.visilpro.service.vision;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Frontal face detector over an {@link IntegralImage}, in the style of the first
+ * stages of a Viola-Jones cascade. Square windows are slid over the frame at
+ * several scales and tested with a handful of hand-placed rectangle features:
+ * <ol>
+ *   <li>the eye band is darker than the cheeks,</li>
+ *   <li>the nose bridge is brighter than either eye,</li>
+ *   <li>the forehead is brighter than the eyes,</li>
+ *   <li>the mouth is darker than the cheeks,</li>
+ *   <li>the two eyes are of similar brightness and the cheeks are smooth.</li>
+ * </ol>
+ * Feature responses are divided by the window's standard deviation, so the
+ * tests hold under any lighting. Stages run in order and a window is rejected
+ * at the first failing one, which keeps the cost of the many background windows
+ * to a few table lookups.
+ *
+ * {@link #scan} runs the cascade once at a given sensitivity and remembers, for
+ * every hit, the margin by which it cleared its weakest stage. {@link #detect}
+ * then merges the hits above any stricter margin without scanning again;
+ * the number of merged hits is kept as a confidence signal.
+ *
+ * The features are placed by hand rather than trained, so the detector is tuned
+ * for recall on webcam framing and its output is meant for screening, not for
+ * final verdicts. Instances own scratch lists and are not thread-safe.
+ */
+public class FaceDetector {
+
+    private static final int MIN_WINDOW = 20;
+    private static final double SCALE_STEP = 1.2;
+    private static final double SHIFT_FRACTION = 0.1;
+
+    // Windows flatter than this cannot hold facial features
+    private static final double MIN_STDDEV = 10;
+
+    // Feature rectangles as fractions of the window: x, y, width, height
+    private static final double[] FOREHEAD = {0.20, 0.06, 0.60, 0.16};
+    private static final double[] LEFT_EYE = {0.14, 0.28, 0.28, 0.16};
+    private static final double[] BRIDGE = {0.42, 0.28, 0.16, 0.16};
+    private static final double[] RIGHT_EYE = {0.58, 0.28, 0.28, 0.16};
+    private static final double[] CHEEKS = {0.14, 0.50, 0.72, 0.14};
+    private static final double[] MOUTH = {0.30, 0.70, 0.40, 0.12};
+
+    // Minimum normalized response per stage
+    private static final double EYES_UNDER_CHEEKS = 0.35;
+    private static final double BRIDGE_OVER_EYES = 0.15;
+    private static final double FOREHEAD_OVER_EYES = 0.25;
+    private static final double MOUTH_UNDER_CHEEKS = 0.05;
+    // Maximum normalized eye imbalance and cheek texture
+    private static final double EYE_IMBALANCE = 0.8;
+    private static final double CHEEK_TEXTURE = 0.6;
+
+    // Nose bridge search for yaw: strip positions across the eye band
+    private static final int YAW_STEPS = 11;
+    private static final double YAW_STRIP = 0.12;
+    private static final double YAW_SPAN = 0.25;
+
+    private record Hit(int x, int y, int size, double score, double margin) {
+    }
+
+    private final List<Hit> hits = new ArrayList<>();
+    private IntegralImage integral;
+
+    /**
+     * Slide the cascade over the frame, keeping every window that clears all
+     * stages at {@code sensitivity} (1 is the normal detector, lower admits weaker
+     * candidates). Replaces the hits of any previous scan.
+     */
+    public void scan(IntegralImage integral, int width, int height, double sensitivity) {
+        this.integral = integral;
+        hits.clear();
+        int maxWindow = Math.min(width, height);
+        for (double size = MIN_WINDOW; size <= maxWindow; size *= SCALE_STEP) {
+            int s = (int) size;
+            int shift = Math.max(2, (int) (s * SHIFT_FRACTION));
+            for (int y = 0; y + s <= height; y += shift) {
+                for (int x = 0; x + s <= width; x += shift) {
+                    evaluate(x, y, s, sensitivity);
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+    }
+
+    /**
+     * Merge the hits of the last scan that would have passed at {@code sensitivity}
+     * and add them to {@code into}, strongest first.
+     */
+    public void detect(double sensitivity, List<Face> into) {
+        int first = into.size();
+        for (Hit hit : hits) {
+            if (hit.margin() < sensitivity) {
+                continue;
+            }
+            // Greedy non-maximum suppression: merge into the strongest overlapping detection
+            boolean merged = false;
+            for (int i = first; i < into.size(); i++) {
+                Face kept = into.get(i);
+                if (kept.overlaps(hit.x(), hit.y(), hit.size())) {
+                    into.set(i, new Face(kept.x(), kept.y(), kept.size(), kept.score(), kept.neighbors() + 1, kept.yaw()));
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                into.add(new Face(hit.x(), hit.y(), hit.size(), hit.score(), 1, estimateYaw(hit.x(), hit.y(), hit.size())));
+            }
+        }
+    }
+
+    private void evaluate(int x, int y, int s, double sensitivity) {
+        double variance = integral.variance(x, y, s, s);
+        if (variance < MIN_STDDEV * MIN_STDDEV) {
+            return;
+        }
+        double stddev = Math.sqrt(variance);
+
+        double leftEye = region(x, y, s, LEFT_EYE);
+        double rightEye = region(x, y, s, RIGHT_EYE);
+        double eyes = (leftEye + rightEye) / 2;
+        double cheeks = region(x, y, s, CHEEKS);
+        double eyesUnderCheeks = (cheeks - eyes) / stddev;
+        double margin = eyesUnderCheeks / EYES_UNDER_CHEEKS;
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double eyeImbalance = Math.abs(leftEye - rightEye) / stddev;
+        margin = Math.min(margin, EYE_IMBALANCE / Math.max(eyeImbalance, 1e-6));
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double bridgeOverEyes = (region(x, y, s, BRIDGE) - Math.max(leftEye, rightEye)) / stddev;
+        margin = Math.min(margin, bridgeOverEyes / BRIDGE_OVER_EYES);
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double foreheadOverEyes = (region(x, y, s, FOREHEAD) - eyes) / stddev;
+        margin = Math.min(margin, foreheadOverEyes / FOREHEAD_OVER_EYES);
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double mouthUnderCheeks = (cheeks - region(x, y, s, MOUTH)) / stddev;
+        margin = Math.min(margin, mouthUnderCheeks / MOUTH_UNDER_CHEEKS);
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double cheekTexture = Math.sqrt(regionVariance(x, y, s, CHEEKS)) / stddev;
+        margin = Math.min(margin, CHEEK_TEXTURE / Math.max(cheekTexture, 1e-6));
+        if (margin < sensitivity) {
+            return;
+        }
+
+        double score = eyesUnderCheeks + bridgeOverEyes + foreheadOverEyes + mouthUnderCheeks;
+        hits.add(new Hit(x, y, s, score, margin));
+    }
+
+    /**
+     * Offset of the brightest vertical strip in the eye band from the window
+     * centre. The nose bridge moves towards the side the head is turned to.
+     */
+    private double estimateYaw(int x, int y, int s) {
+        int strip = Math.max(1, (int) (s * YAW_STRIP));
+        int top = y + (int) (s * BRIDGE[1]);
+        int band = Math.max(1, (int) (s * BRIDGE[3]));
+        double best = -1;
+        double bestOffset = 0;
+        for (int i = 0; i < YAW_STEPS; i++) {
+            double offset = -1 + 2.0 * i / (YAW_STEPS - 1);
+            int left = x + (int) (s * (0.5 + offset * YAW_SPAN)) - strip / 2;
+            double mean = integral.mean(left, top, strip, band);
+            if (mean > best) {
+                best = mean;
+                bestOffset = offset;
+            }
+        }
+        return bestOffset;
+    }
+
+    private double region(int x, int y, int s, double[] rect) {
+        return integral.mean(x + (int) (s * rect[0]), y + (int) (s * rect[1]),
+            Math.max(1, (int) (s * rect[2])), Math.max(1, (int) (s * rect[3])));
+    }
+
+    private double regionVariance(int x, int y, int s, double[] rect) {
+        return integral.variance(x + (int) (s * rect[0]), y + (int) (s * rect[1]),
+            Math.max(1, (int) (s * rect[2])), Math.max(1, (int) (s * rect[3])));
+    }
+}
@@ -0,0 +1,48 @@
+package com.visilpro.service.vision;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Decodes JPEG or PNG frames straight to a small grayscale plane. The reader
+ * subsamples while decoding, so a 1280x720 webcam frame comes out at most
+ * {@code maxWidth} pixels wide without a full-size image ever being allocated.
+ */
+public class FrameDecoder {
+
+    private final int maxWidth;
+
+    public FrameDecoder(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * @return false if the bytes are not an image ImageIO can read
+     */
+    public boolean decode(byte[] encoded, GrayFrame into) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(1, (reader.getWidth(0) + maxWidth - 1) / maxWidth);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                into.load(image);
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.visilpro.service.vision;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Shrinks a webcam frame before it is sent to the vision model:
+ * <ol>
+ *   <li>crop to the student's region when the prescreen found exactly one face and
+ *   nothing else face-like, even at relaxed sensitivity: the face widened by {@code margin} face sizes on each side, from just above
+ *   the head down to the bottom of the frame so the desk stays in view. A person further back
+ *   can be smaller than the prescreen's smallest window, so before cropping the frame is
+ *   scanned again at {@link #CHECK_WIDTH} pixels wide, and anything face-like outside the
+ *   crop keeps the whole frame,</li>
+ *   <li>downscale so that the longer edge is at most {@code maxEdge} pixels. The
+ *   reader decodes the crop region with integer subsampling to no less than twice
+ *   the target size, and a box filter scales the rest of the way,</li>
+ *   <li>re-encode as baseline JPEG at {@code quality}.</li>
+ * </ol>
+ * Decode and scale targets come from a shared {@link RasterPool}. The JPEG writer
+ * and output buffer belong to the instance, which is therefore not thread-safe.
+ */
+public class FramePreprocessor {
+
+    // Crops that keep most of the frame are not worth the re-framing
+    private static final double MIN_CROP_SAVING = 0.15;
+    private static final double HEAD_TOP = 1.0;
+    // Three times the prescreen's width: finds faces down to about 4% of the frame width
+    static final int CHECK_WIDTH = 3 * ImagePrescreener.ANALYSIS_WIDTH;
+
+    private final RasterPool pool;
+    private final int maxEdge;
+    private final double margin;
+    private final ImageWriter writer;
+    private final ImageWriteParam writeParam;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+    private int[] columnStart = new int[0];
+    private int[] rowSums = new int[0];
+    private final FrameDecoder checkDecoder = new FrameDecoder(CHECK_WIDTH);
+    private final GrayFrame checkFrame = new GrayFrame();
+    private final IntegralImage checkIntegral = new IntegralImage();
+    private final FaceDetector checkDetector = new FaceDetector();
+    private final List<Face> checkFaces = new ArrayList<>();
+
+    public FramePreprocessor(RasterPool pool, int maxEdge, float quality, double margin) {
+        this.pool = pool;
+        this.maxEdge = maxEdge;
+        this.margin = margin;
+        this.writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        this.writeParam = writer.getDefaultWriteParam();
+        writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        writeParam.setCompressionQuality(quality);
+    }
+
+    /**
+     * @param prescreen result of screening the same frame, or null; its face sets the crop
+     * @return the re-encoded frame, or null if it could not be decoded or would not get smaller
+     */
+    public byte[] process(byte[] encoded, PrescreenResult prescreen) throws IOException {
+        BufferedImage decoded = null;
+        BufferedImage scaled = null;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                Rectangle region = cropRegion(encoded, reader.getWidth(0), reader.getHeight(0), prescreen);
+                int longEdge = Math.max(region.width, region.height);
+                int step = Math.max(1, longEdge / (2 * maxEdge));
+                int decodedWidth = (region.width + step - 1) / step;
+                int decodedHeight = (region.height + step - 1) / step;
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(step, step, 0, 0);
+                if (decodesToBgr(reader)) {
+                    decoded = pool.acquire(decodedWidth, decodedHeight);
+                    param.setDestination(decoded);
+                }
+                BufferedImage image = reader.read(0, param);
+                if (decoded == null) {
+                    decoded = image;
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        try {
+            BufferedImage target = decoded;
+            double scale = Math.min(1, (double) maxEdge / Math.max(decoded.getWidth(), decoded.getHeight()));
+            // Other layouts (e.g. PNG with alpha) are redrawn into a BGR raster, which the JPEG writer accepts
+            if (scale < 1 || decoded.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+                scaled = pool.acquire(Math.max(1, (int) Math.round(decoded.getWidth() * scale)),
+                    Math.max(1, (int) Math.round(decoded.getHeight() * scale)));
+                if (decoded.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+                    areaScale(decoded, scaled);
+                } else {
+                    Graphics2D g = scaled.createGraphics();
+                    try {
+                        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                        g.drawImage(decoded, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+                    } finally {
+                        g.dispose();
+                    }
+                }
+                target = scaled;
+            }
+            byte[] jpeg = encode(target);
+            return jpeg.length < encoded.length ? jpeg : null;
+        } finally {
+            pool.release(decoded);
+            pool.release(scaled);
+        }
+    }
+
+    /**
+     * Crop rectangle in source pixels: the whole frame unless exactly one face was
+     * found and the crop would save a worthwhile share of it. A second relaxed
+     * candidate may be a smaller or turned-away person the strict count skipped,
+     * so it rules the crop out.
+     */
+    Rectangle personRegion(int width, int height, PrescreenResult prescreen) {
+        Rectangle whole = new Rectangle(0, 0, width, height);
+        Face face = prescreen != null && prescreen.candidates() == 1 ? prescreen.face() : null;
+        if (face == null || prescreen.width() <= 0) {
+            return whole;
+        }
+        double scale = (double) width / prescreen.width();
+        double size = face.size() * scale;
+        int left = (int) Math.max(0, face.x() * scale - margin * size);
+        int right = (int) Math.min(width, (face.x() + face.size()) * scale + margin * size);
+        int top = (int) Math.max(0, face.y() * scale - HEAD_TOP * size);
+        Rectangle region = new Rectangle(left, top, right - left, height - top);
+        double saving = 1 - (double) region.width * region.height / ((double) width * height);
+        return saving >= MIN_CROP_SAVING && region.width > 0 && region.height > 0 ? region : whole;
+    }
+
+    /**
+     * {@link #personRegion}, unless a finer scan finds something face-like the crop would cut off.
+     */
+    Rectangle cropRegion(byte[] encoded, int width, int height, PrescreenResult prescreen) throws IOException {
+        Rectangle region = personRegion(width, height, prescreen);
+        if (region.width == width && region.height == height || !checkDecoder.decode(encoded, checkFrame)) {
+            return new Rectangle(0, 0, width, height);
+        }
+        checkIntegral.compute(checkFrame);
+        checkDetector.scan(checkIntegral, checkFrame.width(), checkFrame.height(), ImagePrescreener.RELAXED_SENSITIVITY);
+        checkFaces.clear();
+        checkDetector.detect(ImagePrescreener.RELAXED_SENSITIVITY, checkFaces);
+        double scale = (double) width / checkFrame.width();
+        for (Face face : checkFaces) {
+            int size = (int) Math.ceil(face.size() * scale);
+            if (!region.contains((int) (face.x() * scale), (int) (face.y() * scale), size, size)) {
+                return new Rectangle(0, 0, width, height);
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Box-filter downscale between BGR rasters: every target pixel is the mean of
+     * the source pixels it covers. Each source pixel is read once, and averaging
+     * also removes sensor noise that would otherwise cost JPEG bytes.
+     */
+    void areaScale(BufferedImage source, BufferedImage target) {
+        byte[] src = ((DataBufferByte) source.getRaster().getDataBuffer()).getData();
+        byte[] dst = ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
+        int sw = source.getWidth();
+        int sh = source.getHeight();
+        int tw = target.getWidth();
+        int th = target.getHeight();
+        if (columnStart.length < tw + 1) {
+            columnStart = new int[tw + 1];
+            rowSums = new int[tw * 3];
+        }
+        for (int x = 0; x <= tw; x++) {
+            columnStart[x] = (int) ((long) x * sw / tw);
+        }
+        for (int y = 0; y < th; y++) {
+            int y0 = (int) ((long) y * sh / th);
+            int y1 = Math.max(y0 + 1, (int) ((long) (y + 1) * sh / th));
+            Arrays.fill(rowSums, 0, tw * 3, 0);
+            for (int sy = y0; sy < y1; sy++) {
+                int row = sy * sw * 3;
+                for (int x = 0; x < tw; x++) {
+                    int x1 = Math.max(columnStart[x] + 1, columnStart[x + 1]);
+                    int b = 0;
+                    int g = 0;
+                    int r = 0;
+                    for (int p = row + columnStart[x] * 3, end = row + x1 * 3; p < end; p += 3) {
+                        b += src[p] & 0xFF;
+                        g += src[p + 1] & 0xFF;
+                        r += src[p + 2] & 0xFF;
+                    }
+                    rowSums[x * 3] += b;
+                    rowSums[x * 3 + 1] += g;
+                    rowSums[x * 3 + 2] += r;
+                }
+            }
+            int out = y * tw * 3;
+            for (int x = 0; x < tw; x++) {
+                int count = (y1 - y0) * Math.max(1, columnStart[x + 1] - columnStart[x]);
+                int half = count / 2;
+                dst[out + x * 3] = (byte) ((rowSums[x * 3] + half) / count);
+                dst[out + x * 3 + 1] = (byte) ((rowSums[x * 3 + 1] + half) / count);
+                dst[out + x * 3 + 2] = (byte) ((rowSums[x * 3 + 2] + half) / count);
+            }
+        }
+    }
+
+    private static boolean decodesToBgr(ImageReader reader) throws IOException {
+        Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+        while (types.hasNext()) {
+            if (types.next().getBufferedImageType() == BufferedImage.TYPE_3BYTE_BGR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        output.reset();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(output)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.reset();
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.visilpro.service.vision;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * 8-bit luma plane of a decoded frame. Instances are reused across frames; the
+ * backing array only grows.
+ */
+public class GrayFrame {
+
+    private byte[] luma = new byte[0];
+    private int width;
+    private int height;
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Luma at (x, y), 0-255.
+     */
+    public int get(int x, int y) {
+        return luma[y * width + x] & 0xFF;
+    }
+
+    byte[] luma() {
+        return luma;
+    }
+
+    /**
+     * Load the luma of an image (BT.601 weights). Byte-interleaved and gray
+     * rasters, which is what the JPEG and PNG readers produce, are read directly.
+     */
+    public void load(BufferedImage image) {
+        width = image.getWidth();
+        height = image.getHeight();
+        int pixels = width * height;
+        if (luma.length < pixels) {
+            luma = new byte[pixels];
+        }
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_BYTE_GRAY -> {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                System.arraycopy(data, 0, luma, 0, pixels);
+            }
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0, p = 0; i < pixels; i++, p += 3) {
+                    luma[i] = (byte) ((29 * (data[p] & 0xFF) + 150 * (data[p + 1] & 0xFF) + 77 * (data[p + 2] & 0xFF)) >> 8);
+                }
+            }
+            default -> {
+                int[] row = new int[width];
+                for (int y = 0; y < height; y++) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        int rgb = row[x];
+                        luma[y * width + x] = (byte) ((77 * ((rgb >> 16) & 0xFF) + 150 * ((rgb >> 8) & 0xFF) + 29 * (rgb & 0xFF)) >> 8);
+                    }
+                }
+            }
+        }
+    }
+}
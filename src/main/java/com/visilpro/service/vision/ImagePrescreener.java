@@ -0,0 +1,125 @@
+package com.visilpro.service.vision;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheap CPU pass over a webcam frame that settles the clear-cut cases before any
+ * model call. The frame is decoded subsampled to about 160 pixels wide, and the
+ * face detector scans it once at a relaxed sensitivity. The relaxed hits tell
+ * whether anything face-like is present at all; the subset that also passes the
+ * strict tests is used to count faces.
+ *
+ * Only two outcomes are conclusive:
+ * <ul>
+ *   <li>{@code CAMERA_BLOCKED}: the frame is dark or featureless (covered lens),</li>
+ *   <li>{@code MULTIPLE_FACES}: at least two strict detections, each supported by
+ *   several merged windows, responding at least half as strongly as the best one,
+ *   at least half the size of the largest one and too far from the others to
+ *   belong to the same head.</li>
+ * </ul>
+ * {@code NO_FACE} (not even the relaxed detector finds a candidate) is reported
+ * but left to the model, like a single face: a turned head or a badly lit face
+ * can escape the detector. The model also looks for phones, notes and gaze.
+ * Instances own their buffers and are not thread-safe.
+ */
+public class ImagePrescreener {
+
+    public static final int ANALYSIS_WIDTH = 160;
+
+    private static final double DARK_LUMA = 25;
+    private static final double FLAT_CONTRAST = 8;
+    static final double RELAXED_SENSITIVITY = 0.5;
+    private static final int MIN_NEIGHBORS = 5;
+    private static final double MIN_SECOND_FACE_RATIO = 0.5;
+    private static final double MIN_SUPPORT_RATIO = 0.4;
+    private static final double MIN_SCORE_RATIO = 0.5;
+    // Detection boxes cover eyes to mouth; two heads cannot be closer than this many box sizes apart
+    private static final double MIN_SEPARATION = 0.75;
+
+    private final FrameDecoder decoder = new FrameDecoder(ANALYSIS_WIDTH);
+    private final GrayFrame frame = new GrayFrame();
+    private final IntegralImage integral = new IntegralImage();
+    private final FaceDetector detector = new FaceDetector();
+    private final List<Face> detections = new ArrayList<>();
+    private final List<Face> counted = new ArrayList<>();
+
+    /**
+     * Screen an encoded JPEG or PNG frame.
+     *
+     * @return the result, or null if the bytes could not be decoded
+     */
+    public PrescreenResult prescreen(byte[] encoded) throws IOException {
+        if (!decoder.decode(encoded, frame)) {
+            return null;
+        }
+        return prescreen(frame);
+    }
+
+    public PrescreenResult prescreen(GrayFrame frame) {
+        int width = frame.width();
+        int height = frame.height();
+        integral.compute(frame);
+        double meanLuma = integral.mean(0, 0, width, height);
+        double contrast = Math.sqrt(integral.variance(0, 0, width, height));
+        if (meanLuma < DARK_LUMA || contrast < FLAT_CONTRAST) {
+            return new PrescreenResult(PrescreenResult.Verdict.CAMERA_BLOCKED, 0, 0, 0, meanLuma, contrast, null, width, height);
+        }
+
+        detections.clear();
+        detector.scan(integral, width, height, RELAXED_SENSITIVITY);
+        detector.detect(RELAXED_SENSITIVITY, detections);
+        int candidates = detections.size();
+        if (candidates == 0) {
+            return new PrescreenResult(PrescreenResult.Verdict.NO_FACE, 0, 0, 0, meanLuma, contrast, null, width, height);
+        }
+
+        detections.clear();
+        detector.detect(1, detections);
+        // A real face fires at many nearby windows and responds about as strongly
+        // as the best one; stray feature matches do neither
+        int support = MIN_NEIGHBORS;
+        double best = 0;
+        for (Face face : detections) {
+            support = Math.max(support, (int) (face.neighbors() * MIN_SUPPORT_RATIO));
+            best = Math.max(best, face.score());
+        }
+        int largest = 0;
+        for (Face face : detections) {
+            if (isConfirmed(face, support, best)) {
+                largest = Math.max(largest, face.size());
+            }
+        }
+        counted.clear();
+        for (Face face : detections) {
+            if (isConfirmed(face, support, best) && face.size() >= largest * MIN_SECOND_FACE_RATIO
+                    && isSeparated(face, counted)) {
+                counted.add(face);
+            }
+        }
+        int faces = counted.size();
+        double yaw = detections.isEmpty() ? 0 : detections.get(0).yaw();
+        PrescreenResult.Verdict verdict = faces >= 2 ? PrescreenResult.Verdict.MULTIPLE_FACES : PrescreenResult.Verdict.AMBIGUOUS;
+        return new PrescreenResult(verdict, faces, candidates, yaw, meanLuma, contrast,
+            faces == 1 ? counted.get(0) : null, width, height);
+    }
+
+    private static boolean isSeparated(Face face, List<Face> counted) {
+        double cx = face.x() + face.size() / 2.0;
+        double cy = face.y() + face.size() / 2.0;
+        for (Face other : counted) {
+            double dx = cx - (other.x() + other.size() / 2.0);
+            double dy = cy - (other.y() + other.size() / 2.0);
+            double minDistance = MIN_SEPARATION * (face.size() + other.size());
+            if (dx * dx + dy * dy < minDistance * minDistance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConfirmed(Face face, int support, double bestScore) {
+        return face.neighbors() >= support && face.score() >= bestScore * MIN_SCORE_RATIO;
+    }
+}
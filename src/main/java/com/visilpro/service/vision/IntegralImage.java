@@ -0,0 +1,64 @@
+package com.visilpro.service.vision;
+
+/**
+ * Summed-area tables of a {@link GrayFrame} (values and squared values), so the
+ * mean and variance of any rectangle cost four lookups each.
+ */
+public class IntegralImage {
+
+    private int[] sum = new int[0];
+    private long[] squares = new long[0];
+    private int stride;
+
+    public void compute(GrayFrame frame) {
+        int width = frame.width();
+        int height = frame.height();
+        stride = width + 1;
+        int size = stride * (height + 1);
+        if (sum.length < size) {
+            sum = new int[size];
+            squares = new long[size];
+        }
+        byte[] luma = frame.luma();
+        // Row 0 and column 0 stay zero
+        for (int x = 0; x <= width; x++) {
+            sum[x] = 0;
+            squares[x] = 0;
+        }
+        for (int y = 1; y <= height; y++) {
+            int rowSum = 0;
+            long rowSquares = 0;
+            int base = y * stride;
+            sum[base] = 0;
+            squares[base] = 0;
+            for (int x = 1; x <= width; x++) {
+                int value = luma[(y - 1) * width + x - 1] & 0xFF;
+                rowSum += value;
+                rowSquares += value * value;
+                sum[base + x] = sum[base - stride + x] + rowSum;
+                squares[base + x] = squares[base - stride + x] + rowSquares;
+            }
+        }
+    }
+
+    /**
+     * Sum over the rectangle [x, x + w) x [y, y + h).
+     */
+    public int sum(int x, int y, int w, int h) {
+        int top = y * stride;
+        int bottom = (y + h) * stride;
+        return sum[bottom + x + w] - sum[bottom + x] - sum[top + x + w] + sum[top + x];
+    }
+
+    public double mean(int x, int y, int w, int h) {
+        return (double) sum(x, y, w, h) / (w * h);
+    }
+
+    public double variance(int x, int y, int w, int h) {
+        int top = y * stride;
+        int bottom = (y + h) * stride;
+        long sq = squares[bottom + x + w] - squares[bottom + x] - squares[top + x + w] + squares[top + x];
+        double mean = mean(x, y, w, h);
+        return Math.max(0, (double) sq / (w * h) - mean * mean);
+    }
+}
@@ -0,0 +1,35 @@
+package com.visilpro.service.vision;
+
+/**
+ * Outcome of screening one frame locally.
+ *
+ * @param faces      detections that passed the strong test
+ * @param candidates detections that passed the relaxed test, including weak ones
+ * @param yaw        rough yaw of the strongest face, or 0 when there is none
+ * @param meanLuma   mean brightness of the frame, 0-255
+ * @param contrast   standard deviation of the frame's brightness
+ * @param face       the face when exactly one was counted, else null; other candidates may remain
+ * @param width      width of the analysis frame the face coordinates refer to
+ * @param height     height of the analysis frame
+ */
+public record PrescreenResult(Verdict verdict, int faces, int candidates, double yaw, double meanLuma, double contrast,
+                              Face face, int width, int height) {
+
+    public enum Verdict {
+        /** Frame dark or featureless, as with a covered lens. */
+        CAMERA_BLOCKED,
+        /** Scene visible, but nothing face-like found; left to the model, which still sees turned or badly lit faces. */
+        NO_FACE,
+        /** Two or more well-separated, well-supported faces. */
+        MULTIPLE_FACES,
+        /** Anything else, including a single face; needs the model. */
+        AMBIGUOUS
+    }
+
+    /**
+     * True when the verdict can be recorded without asking the model.
+     */
+    public boolean isConclusive() {
+        return verdict == Verdict.CAMERA_BLOCKED || verdict == Verdict.MULTIPLE_FACES;
+    }
+}
@@ -0,0 +1,41 @@
+package com.visilpro.service.vision;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded pool of {@code TYPE_3BYTE_BGR} images, kept per size. Webcam frames of
+ * one camera all have the same size, so after warm-up decoding and scaling a
+ * frame allocates no new rasters. Images are handed out with stale pixels; the
+ * caller overwrites them.
+ */
+public final class RasterPool {
+
+    private final int maxIdlePerSize;
+    private final Map<Long, BlockingQueue<BufferedImage>> idle = new ConcurrentHashMap<>();
+
+    public RasterPool(int maxIdlePerSize) {
+        this.maxIdlePerSize = maxIdlePerSize;
+    }
+
+    public BufferedImage acquire(int width, int height) {
+        BlockingQueue<BufferedImage> queue = idle.get(key(width, height));
+        BufferedImage image = queue != null ? queue.poll() : null;
+        return image != null ? image : new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    public void release(BufferedImage image) {
+        if (image == null || image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            return;
+        }
+        idle.computeIfAbsent(key(image.getWidth(), image.getHeight()), k -> new ArrayBlockingQueue<>(maxIdlePerSize))
+            .offer(image);
+    }
+
+    private static long key(int width, int height) {
+        return ((long) width << 32) | height;
+    }
+}
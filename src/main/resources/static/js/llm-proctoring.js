@@ -1,11 +1,66 @@
 // Enhanced Gemini AI-powered proctoring client
+
+// Audio worklet that converts microphone input to G.711 mu-law, one byte per sample, and posts it
+// in 250 ms frames. Half the bytes of 16-bit PCM, and the server decodes it with a table lookup
+const MULAW_CAPTURE_WORKLET = `
+class MuLawCapture extends AudioWorkletProcessor {
+    constructor() {
+        super();
+        this.frame = new Uint8Array(4000);
+        this.length = 0;
+    }
+
+    static encode(sample) {
+        let magnitude = sample < 0 ? -sample : sample;
+        const sign = sample < 0 ? 0x80 : 0;
+        magnitude = Math.min(magnitude, 32635) + 0x84;
+        let exponent = 7;
+        for (let mask = 0x4000; (magnitude & mask) === 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        const mantissa = (magnitude >> (exponent + 3)) & 0x0F;
+        return ~(sign | (exponent << 4) | mantissa) & 0xFF;
+    }
+
+    process(inputs) {
+        const channel = inputs[0] && inputs[0][0];
+        if (channel) {
+            for (let i = 0; i < channel.length; i++) {
+                const sample = Math.max(-1, Math.min(1, channel[i]));
+                this.frame[this.length++] = MuLawCapture.encode(Math.round(sample < 0 ? sample * 0x8000 : sample * 0x7FFF));
+                if (this.length === this.frame.length) {
+                    this.port.postMessage(this.frame.buffer, [this.frame.buffer]);
+                    this.frame = new Uint8Array(4000);
+                    this.length = 0;
+                }
+            }
+        }
+        return true;
+    }
+}
+registerProcessor('mulaw-capture', MuLawCapture);
+`;
+
+// Headers that let the server trace a frame or chunk from capture to verdict
+function captureHeaders(capturedAt) {
+    const traceId = (window.crypto && crypto.randomUUID)
+        ? crypto.randomUUID()
+        : Date.now().toString(16) + Math.random().toString(16).slice(2);
+    return {
+        'Content-Type': 'application/json',
+        'X-Capture-Timestamp': String(capturedAt),
+        'X-Trace-Id': traceId
+    };
+}
+
 class GeminiProctoringClient {
     constructor(sessionId) {
         this.sessionId = sessionId;
         this.isMonitoring = false;
-        this.mediaRecorder = null;
-        this.audioChunks = [];
         this.audioStream = null;
+        this.audioSocket = null;
+        this.audioContext = null;
+        this.audioWorklet = null;
         this.violations = [];
         this.analysisStats = {
             totalAnalyses: 0,
@@ -22,12 +77,9 @@ class GeminiProctoringClient {
             // Start periodic image analysis
             await this.startImageAnalysis();
             
-            // Start audio monitoring
+            // Start audio monitoring; the server pairs each frame with the streamed audio around its capture time
             await this.startAudioMonitoring();
             
-            // Start combined multimodal analysis every 30 seconds
-            this.startMultimodalAnalysis();
-            
         } catch (error) {
             console.error('Failed to start monitoring:', error);
         }
@@ -37,8 +89,12 @@ class GeminiProctoringClient {
         this.isMonitoring = false;
         console.log('🛑 Gemini AI proctoring stopped');
         
-        if (this.mediaRecorder && this.mediaRecorder.state === 'recording') {
-            this.mediaRecorder.stop();
+        if (this.audioSocket) {
+            this.audioSocket.close();
+        }
+        
+        if (this.audioContext) {
+            this.audioContext.close();
         }
         
         if (this.audioStream) {
@@ -58,9 +114,10 @@ class GeminiProctoringClient {
                     canvas.width = video.videoWidth;
                     canvas.height = video.videoHeight;
                     ctx.drawImage(video, 0, 0);
+                    const capturedAt = Date.now();
                     
                     const base64Image = canvas.toDataURL('image/jpeg', 0.8).split(',')[1];
-                    await this.sendImageToGemini(base64Image);
+                    await this.sendImageToGemini(base64Image, capturedAt);
                 }
             }, 15000);
 
@@ -79,61 +136,46 @@ class GeminiProctoringClient {
                 } 
             });
             
-            this.mediaRecorder = new MediaRecorder(this.audioStream, {
-                mimeType: 'audio/webm'
-            });
-
-            this.mediaRecorder.ondataavailable = (event) => {
-                if (event.data.size > 0) {
-                    this.audioChunks.push(event.data);
-                }
-            };
-
-            this.mediaRecorder.onstop = async () => {
-                if (this.audioChunks.length > 0) {
-                    const audioBlob = new Blob(this.audioChunks, { type: 'audio/webm' });
-                    await this.sendAudioToGemini(audioBlob);
-                    this.audioChunks = [];
-                }
-            };
-
-            // Record in 20-second chunks
-            setInterval(() => {
-                if (this.isMonitoring) {
-                    if (this.mediaRecorder.state === 'recording') {
-                        this.mediaRecorder.stop();
-                    }
-                    this.mediaRecorder.start();
-                    
-                    setTimeout(() => {
-                        if (this.mediaRecorder.state === 'recording') {
-                            this.mediaRecorder.stop();
-                        }
-                    }, 20000);
-                }
-            }, 22000);
+            // Live analysis: raw PCM streamed over a binary WebSocket. The stream is also the
+            // audio the server joins with frames, so no separate clips are recorded or uploaded
+            await this.startAudioStreaming();
 
         } catch (error) {
             console.error('Failed to start audio monitoring:', error);
         }
     }
 
-    startMultimodalAnalysis() {
-        // Combined analysis every 45 seconds
-        setInterval(async () => {
-            if (this.isMonitoring) {
-                await this.performMultimodalAnalysis();
+    async startAudioStreaming() {
+        const protocol = window.location.protocol === 'https:' ? 'wss://' : 'ws://';
+        // clientTime lets the server stamp stream windows on the same clock as frame capture times
+        this.audioSocket = new WebSocket(
+            `${protocol}${window.location.host}/audio?sessionId=${this.sessionId}&encoding=mulaw&clientTime=${Date.now()}`);
+        this.audioSocket.binaryType = 'arraybuffer';
+        this.audioSocket.onmessage = (event) => {
+            this.handleAnalysisResult(JSON.parse(event.data), 'Audio Analysis');
+        };
+
+        // The server analyzes 16 kHz mono PCM, so let the browser resample for us
+        this.audioContext = new AudioContext({ sampleRate: 16000 });
+        const workletUrl = URL.createObjectURL(new Blob([MULAW_CAPTURE_WORKLET], { type: 'application/javascript' }));
+        await this.audioContext.audioWorklet.addModule(workletUrl);
+        URL.revokeObjectURL(workletUrl);
+
+        const source = this.audioContext.createMediaStreamSource(this.audioStream);
+        this.audioWorklet = new AudioWorkletNode(this.audioContext, 'mulaw-capture');
+        this.audioWorklet.port.onmessage = (event) => {
+            if (this.isMonitoring && this.audioSocket.readyState === WebSocket.OPEN) {
+                this.audioSocket.send(event.data);
             }
-        }, 45000);
+        };
+        source.connect(this.audioWorklet);
     }
 
-    async sendImageToGemini(base64Image) {
+    async sendImageToGemini(base64Image, capturedAt = Date.now()) {
         try {
             const response = await fetch(`/api/exam/gemini/analyze-image/${this.sessionId}`, {
                 method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json'
-                },
+                headers: captureHeaders(capturedAt),
                 body: JSON.stringify(base64Image)
             });
 
@@ -145,77 +187,12 @@ class GeminiProctoringClient {
         }
     }
 
-    async sendAudioToGemini(audioBlob) {
-        try {
-            const reader = new FileReader();
-            reader.onload = async () => {
-                const base64Audio = reader.result.split(',')[1];
-                
-                const response = await fetch(`/api/exam/gemini/analyze-audio/${this.sessionId}`, {
-                    method: 'POST',
-                    headers: {
-                        'Content-Type': 'application/json'
-                    },
-                    body: JSON.stringify(base64Audio)
-                });
-
-                const result = await response.json();
-                this.handleAnalysisResult(result, 'Audio Analysis');
-            };
-            reader.readAsDataURL(audioBlob);
-            
-        } catch (error) {
-            console.error('Gemini audio analysis failed:', error);
-        }
-    }
-
-    async performMultimodalAnalysis() {
-        try {
-            // Capture current frame
-            const video = document.getElementById('video');
-            const canvas = document.createElement('canvas');
-            const ctx = canvas.getContext('2d');
-            
-            if (video.videoWidth === 0) return;
-            
-            canvas.width = video.videoWidth;
-            canvas.height = video.videoHeight;
-            ctx.drawImage(video, 0, 0);
-            
-            const base64Image = canvas.toDataURL('image/jpeg', 0.8).split(',')[1];
-            
-            // Get recent audio if available
-            if (this.audioChunks.length > 0) {
-                const audioBlob = new Blob(this.audioChunks, { type: 'audio/webm' });
-                const reader = new FileReader();
-                
-                reader.onload = async () => {
-                    const base64Audio = reader.result.split(',')[1];
-                    
-                    const response = await fetch(`/api/exam/gemini/analyze-multimodal/${this.sessionId}`, {
-                        method: 'POST',
-                        headers: {
-                            'Content-Type': 'application/json'
-                        },
-                        body: JSON.stringify({
-                            base64Image: base64Image,
-                            base64Audio: base64Audio
-                        })
-                    });
-
-                    const result = await response.json();
-                    this.handleAnalysisResult(result, 'Multimodal Analysis');
-                };
-                
-                reader.readAsDataURL(audioBlob);
-            }
-            
-        } catch (error) {
-            console.error('Multimodal analysis failed:', error);
-        }
-    }
-
     handleAnalysisResult(result, analysisType) {
+        // Frames the server joined with streamed audio come back as multimodal verdicts
+        if (result.type === 'MULTIMODAL_ANALYSIS') {
+            analysisType = 'Multimodal Analysis';
+        }
+        
         this.analysisStats.totalAnalyses++;
         this.analysisStats.lastAnalysis = new Date();
         
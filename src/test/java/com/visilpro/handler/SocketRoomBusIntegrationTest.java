@@ -0,0 +1,131 @@
+package com.visilpro.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several {@link SocketRoomBus} nodes in one JVM, linked over loopback TCP.
+ */
+class SocketRoomBusIntegrationTest {
+
+    private static final String SECRET = "test-secret";
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final List<SocketRoomBus> nodes = new ArrayList<>();
+
+    @AfterEach
+    void closeNodes() {
+        nodes.forEach(SocketRoomBus::close);
+    }
+
+    @Test
+    void deliversOnlyToNodesHoldingTheRoom() throws Exception {
+        List<String> addresses = List.of(freeAddress(), freeAddress(), freeAddress());
+        SocketRoomBus a = node(addresses.get(0), addresses, SECRET);
+        SocketRoomBus b = node(addresses.get(1), addresses, SECRET);
+        SocketRoomBus c = node(addresses.get(2), addresses, SECRET);
+        BlockingQueue<String> atB = listen(b);
+        BlockingQueue<String> atC = listen(c);
+        b.joinRoom("exam-1");
+        c.joinRoom("exam-2");
+
+        assertThat(publishUntilDelivered(a, "exam-1", atB)).isEqualTo("exam-1|peer-a|hello");
+        assertThat(publishUntilDelivered(a, "exam-2", atC)).isEqualTo("exam-2|peer-a|hello");
+        assertThat(atC).isEmpty();
+
+        b.leaveRoom("exam-1");
+        awaitNotDelivered(a, "exam-1", atB);
+    }
+
+    @Test
+    void announcesEveryRoomWhenMoreAreHeldThanALinkQueues() throws Exception {
+        List<String> addresses = List.of(freeAddress(), freeAddress());
+        SocketRoomBus b = node(addresses.get(1), addresses, SECRET);
+        // Held before the link comes up, so all of them are announced in one burst
+        int rooms = 20_000;
+        for (int i = 0; i < rooms; i++) {
+            b.joinRoom("room-" + i);
+        }
+        BlockingQueue<String> atB = listen(b);
+        SocketRoomBus a = node(addresses.get(0), addresses, SECRET);
+
+        assertThat(publishUntilDelivered(a, "room-" + (rooms - 1), atB)).startsWith("room-" + (rooms - 1));
+        a.publish("room-0", "peer-a", "first");
+        assertThat(atB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isEqualTo("room-0|peer-a|first");
+    }
+
+    @Test
+    void refusesNodesWithoutTheSharedSecret() throws Exception {
+        List<String> addresses = List.of(freeAddress(), freeAddress(), freeAddress());
+        SocketRoomBus a = node(addresses.get(0), addresses, SECRET);
+        SocketRoomBus b = node(addresses.get(1), addresses, SECRET);
+        SocketRoomBus intruder = node(addresses.get(2), addresses, "wrong-secret");
+        BlockingQueue<String> atB = listen(b);
+        BlockingQueue<String> atIntruder = listen(intruder);
+        b.joinRoom("exam-1");
+        intruder.joinRoom("exam-1");
+
+        publishUntilDelivered(a, "exam-1", atB);
+        // Several reconnect attempts later the intruder still has no link
+        Thread.sleep(2_500);
+        a.publish("exam-1", "peer-a", "hello");
+        assertThat(atB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isNotNull();
+        assertThat(atIntruder).isEmpty();
+    }
+
+    private SocketRoomBus node(String address, List<String> peers, String secret) throws IOException {
+        SocketRoomBus node = new SocketRoomBus(address, peers, secret);
+        nodes.add(node);
+        return node;
+    }
+
+    private static BlockingQueue<String> listen(SocketRoomBus node) {
+        BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+        node.setListener((room, originPeerId, payload) -> delivered.add(room + "|" + originPeerId + "|" + payload));
+        return delivered;
+    }
+
+    // Links and room announcements are asynchronous: publish until the far node has the room
+    private static String publishUntilDelivered(SocketRoomBus from, String room, BlockingQueue<String> delivered)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            from.publish(room, "peer-a", "hello");
+            String message = delivered.poll(100, TimeUnit.MILLISECONDS);
+            if (message != null) {
+                delivered.clear();
+                return message;
+            }
+        }
+        throw new AssertionError("Nothing delivered for " + room);
+    }
+
+    private static void awaitNotDelivered(SocketRoomBus from, String room, BlockingQueue<String> delivered)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            delivered.clear();
+            from.publish(room, "peer-a", "hello");
+            if (delivered.poll(200, TimeUnit.MILLISECONDS) == null) {
+                return;
+            }
+        }
+        throw new AssertionError("Still delivered for " + room);
+    }
+
+    private static String freeAddress() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "127.0.0.1:" + socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.visilpro.service;
+
+import com.visilpro.service.audio.LocalStubTranscriber;
+import com.visilpro.service.audio.Pcm16;
+import com.visilpro.service.audio.Transcriber;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chunks reach the transcriber in memory, as pooled direct buffers, and the
+ * local stub answers them deterministically.
+ */
+class AudioTranscriptionTest {
+
+    private static final String STUB_TRANSCRIPT = "Sample transcribed text from audio";
+
+    private final LocalStubTranscriber stub = new LocalStubTranscriber();
+    private final List<ByteBuffer> handedOver = new ArrayList<>();
+    private final List<Integer> pieceBytes = new ArrayList<>();
+
+    @Test
+    void stubTranscribesAnythingLongerThanABlip() {
+        assertThat(stub.transcribe(ByteBuffer.allocateDirect(Pcm16.SAMPLE_RATE * 2))).isEqualTo(STUB_TRANSCRIPT);
+        assertThat(stub.transcribe(ByteBuffer.allocateDirect(1000))).isEmpty();
+        // Only the bytes between position and limit count
+        ByteBuffer blip = ByteBuffer.allocateDirect(Pcm16.SAMPLE_RATE * 2);
+        blip.position(blip.limit() - 1000);
+        assertThat(stub.transcribe(blip)).isEmpty();
+    }
+
+    @Test
+    void stubLeavesTheBufferAsItFoundIt() {
+        ByteBuffer pcm = ByteBuffer.allocateDirect(Pcm16.SAMPLE_RATE * 2);
+        stub.transcribe(pcm);
+        assertThat(pcm.position()).isZero();
+        assertThat(pcm.remaining()).isEqualTo(Pcm16.SAMPLE_RATE * 2);
+    }
+
+    @Test
+    void clipIsHandedOverInPooledDirectBuffers() {
+        AudioAnalysisService service = service();
+        // 5 s: two full 2 s stream windows and a 1 s remainder
+        byte[] wav = Pcm16.wav(new short[Pcm16.SAMPLE_RATE * 5], 0, Pcm16.SAMPLE_RATE * 5);
+
+        String transcript = service.transcribeAudio(wav);
+
+        assertThat(transcript).isEqualTo(STUB_TRANSCRIPT + " " + STUB_TRANSCRIPT + " " + STUB_TRANSCRIPT);
+        assertThat(handedOver).allMatch(ByteBuffer::isDirect);
+        assertThat(pieceBytes).containsExactly(
+            AudioAnalysisService.STREAM_WINDOW_SAMPLES * 2, AudioAnalysisService.STREAM_WINDOW_SAMPLES * 2, Pcm16.SAMPLE_RATE * 2);
+        // Released buffers are reused for the next piece
+        assertThat(handedOver.get(1)).isSameAs(handedOver.get(0));
+    }
+
+    @Test
+    void shortClipYieldsNoTranscript() {
+        byte[] wav = Pcm16.wav(new short[1000], 0, 1000);
+        assertThat(service().transcribeAudio(wav)).isEmpty();
+        assertThat(handedOver).hasSize(1).allMatch(ByteBuffer::isDirect);
+    }
+
+    @Test
+    void failingTranscriberYieldsNoTranscript() {
+        AudioAnalysisService service = new AudioAnalysisService();
+        Transcriber failing = pcm -> {
+            throw new IllegalStateException("backend down");
+        };
+        ReflectionTestUtils.setField(service, "transcriber", failing);
+        assertThat(service.transcribeAudio(Pcm16.wav(new short[Pcm16.SAMPLE_RATE], 0, Pcm16.SAMPLE_RATE))).isEmpty();
+    }
+
+    private AudioAnalysisService service() {
+        AudioAnalysisService service = new AudioAnalysisService();
+        Transcriber recording = pcm -> {
+            handedOver.add(pcm);
+            pieceBytes.add(pcm.remaining());
+            return stub.transcribe(pcm);
+        };
+        ReflectionTestUtils.setField(service, "transcriber", recording);
+        return service;
+    }
+}
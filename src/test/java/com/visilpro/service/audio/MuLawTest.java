@@ -0,0 +1,94 @@
+package com.visilpro.service.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The exam page streams mu-law; the local detectors must judge it as they judge 16-bit PCM.
+ */
+class MuLawTest {
+
+    private static final int WINDOW = Pcm16.SAMPLE_RATE * 2;
+
+    @Test
+    void roundTripStaysWithinOneQuantizationStep() {
+        for (int sample = Short.MIN_VALUE; sample <= Short.MAX_VALUE; sample++) {
+            int decoded = MuLaw.decode(MuLaw.encode((short) sample));
+            // Steps grow with magnitude: 8 near zero, 1024 at full scale
+            int step = Math.max(8, Integer.highestOneBit(Math.abs(sample) + 0x84) >> 4);
+            assertThat(Math.abs(decoded - sample)).isLessThanOrEqualTo(step);
+        }
+    }
+
+    @Test
+    void detectorsGiveTheSameVerdictsOnDecodedMuLaw() {
+        Random random = new Random(7);
+        VoiceActivityDetector vad = new VoiceActivityDetector();
+        AcousticEventDetector events = new AcousticEventDetector();
+        for (short[] pcm : new short[][] {twoSpeakers(random), silence(random)}) {
+            short[] decoded = roundTrip(pcm);
+            assertThat(vad.containsSpeech(decoded, 0, WINDOW)).isEqualTo(vad.containsSpeech(pcm, 0, WINDOW));
+            assertThat(events.detectMultipleVoices(decoded, 0, WINDOW)).isEqualTo(events.detectMultipleVoices(pcm, 0, WINDOW));
+            assertThat(events.detectPhoneRinging(decoded, 0, WINDOW)).isEqualTo(events.detectPhoneRinging(pcm, 0, WINDOW));
+            assertThat(events.detectKeyboardSounds(decoded, 0, WINDOW)).isEqualTo(events.detectKeyboardSounds(pcm, 0, WINDOW));
+        }
+    }
+
+    @Test
+    void ringDecodesMuLawFrames() {
+        short[] pcm = twoSpeakers(new Random(3));
+        byte[] codes = new byte[pcm.length];
+        for (int i = 0; i < pcm.length; i++) {
+            codes[i] = MuLaw.encode(pcm[i]);
+        }
+        AudioRingBuffer ring = new AudioRingBuffer(WINDOW);
+        for (int offset = 0; offset < codes.length; offset += 4000) {
+            ring.writeMuLaw(ByteBuffer.wrap(codes, offset, 4000));
+        }
+        short[] window = new short[WINDOW];
+        System.arraycopy(ring.array(), ring.windowStart(WINDOW), window, 0, WINDOW);
+        assertThat(window).isEqualTo(roundTrip(pcm));
+    }
+
+    private static short[] roundTrip(short[] pcm) {
+        short[] decoded = new short[pcm.length];
+        for (int i = 0; i < pcm.length; i++) {
+            decoded[i] = MuLaw.decode(MuLaw.encode(pcm[i]));
+        }
+        return decoded;
+    }
+
+    // Two harmonic voices with different pitch and formants taking turns every half second
+    private static short[] twoSpeakers(Random random) {
+        short[] pcm = new short[WINDOW];
+        double phase = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            boolean first = (i / 8000) % 2 == 0;
+            double f0 = first ? 120 : 210;
+            double[] formants = first ? new double[] {700, 1200, 2600} : new double[] {400, 2200, 3000};
+            phase += 2 * Math.PI * f0 / Pcm16.SAMPLE_RATE;
+            double value = 0;
+            for (int h = 1; h <= 20; h++) {
+                double gain = 0;
+                for (double formant : formants) {
+                    gain += 1 / (1 + Math.pow((h * f0 - formant) / 120, 2));
+                }
+                value += gain * Math.sin(h * phase);
+            }
+            pcm[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, 1500 * value + random.nextGaussian() * 50));
+        }
+        return pcm;
+    }
+
+    private static short[] silence(Random random) {
+        short[] pcm = new short[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            pcm[i] = (short) (random.nextGaussian() * 30);
+        }
+        return pcm;
+    }
+}
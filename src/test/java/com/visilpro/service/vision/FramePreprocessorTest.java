@@ -0,0 +1,174 @@
+package com.visilpro.service.vision;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Preprocessing must shrink frames without hiding anything from the model: the
+ * crop keeps every person in view, and the prescreen judges the shrunk frame as
+ * it judged the original. Frames are drawn like the benchmark fixtures: a
+ * cluttered room, drawn faces and sensor noise, encoded at the page's quality.
+ */
+class FramePreprocessorTest {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final int CROP_SEEDS = 15;
+    private static final int VERDICT_SEEDS = 10;
+
+    private final FramePreprocessor preprocessor = new FramePreprocessor(new RasterPool(4), 512, 0.7f, 2.5);
+    private final ImagePrescreener prescreener = new ImagePrescreener();
+
+    @Test
+    void cropNeverCutsOffASecondPerson() throws IOException {
+        int planned = 0;
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            for (int seed = 0; seed < CROP_SEEDS; seed++) {
+                // The student in front, and a smaller person towards one side of the room
+                Random random = new Random(seed);
+                BufferedImage image = room(width, height, random);
+                Graphics2D g = image.createGraphics();
+                face(g, width / 2, height * 3 / 5, width / 9);
+                int faceWidth = (int) (width / 9 * (0.5 + 0.3 * random.nextDouble()));
+                int cx = random.nextBoolean()
+                    ? faceWidth + random.nextInt(width / 6)
+                    : width - faceWidth - random.nextInt(width / 6);
+                int cy = height / 4 + random.nextInt(height / 3);
+                face(g, cx, cy, faceWidth);
+                g.dispose();
+                addNoise(image, random);
+
+                byte[] jpeg = jpeg(image);
+                PrescreenResult result = prescreener.prescreen(jpeg);
+                if (preprocessor.personRegion(width, height, result).width < width) {
+                    planned++;
+                }
+                Rectangle region = preprocessor.cropRegion(jpeg, width, height, result);
+                Rectangle person = new Rectangle(cx - faceWidth / 2, cy - faceWidth * 13 / 20, faceWidth, faceWidth * 13 / 10);
+                assertThat(region.contains(person))
+                    .as("%dx%d seed %d: crop %s keeps %s", width, height, seed, region, person)
+                    .isTrue();
+            }
+        }
+        // The prescreen alone misses the background person in some of these frames
+        assertThat(planned).isPositive();
+    }
+
+    @Test
+    void prescreenVerdictsSurvivePreprocessing() throws IOException {
+        for (int[] size : SIZES) {
+            for (int faces = 0; faces <= 2; faces++) {
+                for (int seed = 0; seed < VERDICT_SEEDS; seed++) {
+                    String fixture = size[0] + "x" + size[1] + ", " + faces + " faces, seed " + seed;
+                    byte[] original = jpeg(scene(size[0], size[1], faces, new Random(seed)));
+                    PrescreenResult before = prescreener.prescreen(original);
+                    byte[] processed = preprocessor.process(original, before);
+                    assertThat(processed).as(fixture).isNotNull();
+                    assertThat(processed.length).as(fixture).isLessThan(original.length);
+
+                    PrescreenResult after = prescreener.prescreen(processed);
+                    if (faces == 0 && !before.isConclusive()) {
+                        // The shrunk frame is analysed at 128 instead of 160 px wide, so a weak
+                        // candidate in the clutter can come or go; both verdicts go to the model
+                        assertThat(after.verdict()).as(fixture)
+                            .isIn(PrescreenResult.Verdict.NO_FACE, PrescreenResult.Verdict.AMBIGUOUS);
+                    } else {
+                        assertThat(after.verdict()).as(fixture).isEqualTo(before.verdict());
+                        assertThat(after.faces()).as(fixture).isEqualTo(before.faces());
+                    }
+                }
+            }
+        }
+    }
+
+    private static BufferedImage scene(int width, int height, int faces, Random random) {
+        BufferedImage image = room(width, height, random);
+        Graphics2D g = image.createGraphics();
+        int faceWidth = width * 9 / 32;
+        if (faces == 1) {
+            face(g, width / 2, height * 11 / 24, faceWidth);
+        } else if (faces >= 2) {
+            face(g, width * 5 / 16, height * 11 / 24, faceWidth);
+            face(g, width * 23 / 32, height * 23 / 48, faceWidth * 5 / 6);
+        }
+        g.dispose();
+        addNoise(image, random);
+        return image;
+    }
+
+    private static BufferedImage room(int width, int height, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, new Color(120, 130, 140), width, height, new Color(80, 85, 90)));
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 12; i++) {
+            g.setColor(new Color(random.nextInt(200), random.nextInt(200), random.nextInt(200)));
+            g.fillRect(random.nextInt(width), random.nextInt(height), width / 32 + random.nextInt(width / 5),
+                height / 48 + random.nextInt(height / 6));
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static void face(Graphics2D g, int cx, int cy, int w) {
+        int h = w * 13 / 10;
+        int eyeY = cy - h / 8;
+        g.setColor(new Color(60, 40, 30));
+        g.fillOval(cx - w / 2 - 4, cy - h / 2 - 8, w + 8, h / 2);
+        g.setColor(new Color(205, 170, 145));
+        g.fillOval(cx - w / 2, cy - h / 2, w, h);
+        g.setColor(new Color(90, 60, 50));
+        g.fillRect(cx - w / 3, eyeY - w / 6, w / 4, w / 20);
+        g.fillRect(cx + w / 12, eyeY - w / 6, w / 4, w / 20);
+        g.setColor(new Color(50, 40, 40));
+        g.fillOval(cx - w / 3, eyeY - w / 14, w / 4, w / 8);
+        g.fillOval(cx + w / 12, eyeY - w / 14, w / 4, w / 8);
+        g.setColor(new Color(225, 195, 170));
+        g.fillRect(cx - w / 20, eyeY - w / 10, w / 10, w / 3);
+        g.setColor(new Color(150, 70, 70));
+        g.fillOval(cx - w / 6, cy + h / 5, w / 3, w / 10);
+    }
+
+    private static void addNoise(BufferedImage image, Random random) {
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < data.length; i++) {
+            int value = (data[i] & 0xFF) + (int) (random.nextGaussian() * 4);
+            data[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+    }
+
+    // JPEG at quality 0.8, as the exam page sends frames
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}